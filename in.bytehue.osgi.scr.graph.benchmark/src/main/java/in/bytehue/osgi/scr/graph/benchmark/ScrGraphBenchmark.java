@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.benchmark.SyntheticServiceComponentRuntime.Topology;
+import in.bytehue.osgi.scr.graph.provider.ScrGraphProvider;
+
+/**
+ * Measures the graph operations of {@link ScrGraphProvider} against synthetic
+ * runtimes.
+ *
+ * <p>
+ * If {@code changing} is {@code true}, the runtime publishes a new change count
+ * before every invocation so that no cached snapshot can be reused and the
+ * full cost of every operation is measured. Otherwise, the cost of the cached
+ * path is measured.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@State(Scope.Benchmark)
+public class ScrGraphBenchmark {
+
+    @Param({ "CHAIN", "STAR", "CLUSTERS" })
+    private Topology topology;
+
+    @Param({ "100", "1000", "10000", "50000" })
+    private int size;
+
+    @Param({ "true", "false" })
+    private boolean changing;
+
+    private final AtomicLong changeCount = new AtomicLong();
+
+    private ScrGraphProvider provider;
+    private Graph<ScrComponent, DefaultEdge> graph;
+
+    @Setup
+    public void setup() {
+        provider = ScrGraphProviders.create(new SyntheticServiceComponentRuntime(topology, size), changeCount);
+        graph = provider.getGraph();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ScrGraphProviders.dispose(provider);
+    }
+
+    @Benchmark
+    public Graph<ScrComponent, DefaultEdge> getGraph() {
+        change();
+        return provider.getGraph();
+    }
+
+    @Benchmark
+    public List<List<ScrComponent>> getCycles() {
+        change();
+        return provider.getCycles();
+    }
+
+    @Benchmark
+    public Graph<ScrComponent, DefaultEdge> getCyclesAsGraph() {
+        change();
+        return provider.getCyclesAsGraph();
+    }
+
+    @Benchmark
+    public void exportGraph() {
+        provider.exportGraph(graph, NullWriter.INSTANCE);
+    }
+
+    private void change() {
+        if (changing) {
+            changeCount.incrementAndGet();
+        }
+    }
+
+    private static final class NullWriter extends Writer {
+
+        static final NullWriter INSTANCE = new NullWriter();
+
+        @Override
+        public void write(final int c) {
+            // discard
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            // discard
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            // discard
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.benchmark;
+
+import static org.osgi.framework.Constants.SERVICE_CHANGECOUNT;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+
+import in.bytehue.osgi.scr.graph.provider.ScrGraphProvider;
+
+/**
+ * Creates {@link ScrGraphProvider} instances outside of any OSGi framework by
+ * injecting the references and activating them the same way SCR would do.
+ */
+public final class ScrGraphProviders {
+
+    private ScrGraphProviders() {
+        throw new IllegalAccessError("Cannot be instantiated");
+    }
+
+    /**
+     * Creates a provider that is activated with the default values of its
+     * configuration
+     *
+     * @param scr the runtime to inspect
+     * @param changeCount the change count that is published by the runtime
+     * @return the provider
+     */
+    public static ScrGraphProvider create(final ServiceComponentRuntime scr, final AtomicLong changeCount) {
+        final ServiceReference<?> reference = proxy(ServiceReference.class, (proxy, method, args) -> {
+            if ("getProperty".equals(method.getName()) && SERVICE_CHANGECOUNT.equals(args[0])) {
+                return changeCount.get();
+            }
+            return null;
+        });
+        // there is neither a data area nor any service event outside of a framework
+        final BundleContext bundleContext = proxy(BundleContext.class, (proxy, method, args) -> null);
+        final ScrGraphProvider provider = new ScrGraphProvider();
+
+        inject(provider, "scr", scr);
+        inject(provider, "scrReference", reference);
+        try {
+            final Class<?> configType = Class.forName(ScrGraphProvider.class.getName() + "$Config");
+            final Object config = proxy(configType, (proxy, method, args) -> method.getDefaultValue());
+
+            invoke(provider, "activate", new Class<?>[] { BundleContext.class, configType }, bundleContext, config);
+        } catch (final ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot find the configuration type", e);
+        }
+        return provider;
+    }
+
+    /**
+     * Deactivates the specified provider the same way SCR would do
+     *
+     * @param provider the provider created by
+     *            {@link #create(ServiceComponentRuntime, AtomicLong)}
+     */
+    public static void dispose(final ScrGraphProvider provider) {
+        invoke(provider, "deactivate", new Class<?>[0]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ScrGraphProviders.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static void invoke( //
+            final Object target, //
+            final String name, //
+            final Class<?>[] parameterTypes, //
+            final Object... args) {
+        try {
+            final Method method = target.getClass().getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw new IllegalStateException("Cannot invoke '" + name + "'", e.getCause());
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot invoke '" + name + "'", e);
+        }
+    }
+
+    private static void inject(final Object target, final String name, final Object value) {
+        try {
+            final Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject '" + name + "'", e);
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.benchmark;
+
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.ACTIVE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+import org.osgi.service.component.runtime.dto.ReferenceDTO;
+import org.osgi.service.component.runtime.dto.SatisfiedReferenceDTO;
+import org.osgi.service.component.runtime.dto.UnsatisfiedReferenceDTO;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.Promises;
+
+/**
+ * {@link ServiceComponentRuntime} that serves the DTOs of a synthetic topology
+ * of active components.
+ */
+public final class SyntheticServiceComponentRuntime implements ServiceComponentRuntime {
+
+    public enum Topology {
+
+        /**
+         * Every component depends on its predecessor
+         */
+        CHAIN,
+
+        /**
+         * Every component depends on a single central component
+         */
+        STAR,
+
+        /**
+         * Densely wired cyclic clusters of {@value SyntheticServiceComponentRuntime#CLUSTER_SIZE}
+         * components where every cluster also depends on the previous one
+         */
+        CLUSTERS
+    }
+
+    public static final int CLUSTER_SIZE = 8;
+
+    private static final int BUNDLES = 100;
+
+    private final List<ComponentDescriptionDTO> descriptions = new ArrayList<>();
+    private final Map<ComponentDescriptionDTO, List<ComponentConfigurationDTO>> configurations = new IdentityHashMap<>();
+    private final Set<String> disabledComponents = ConcurrentHashMap.newKeySet();
+
+    public SyntheticServiceComponentRuntime(final Topology topology, final int size) {
+        final List<ComponentConfigurationDTO> components = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            components.add(addComponent(i));
+        }
+        for (int i = 0; i < size; i++) {
+            switch (topology) {
+                case CHAIN:
+                    if (i > 0) {
+                        addReference(components.get(i), components.get(i - 1));
+                    }
+                    break;
+                case STAR:
+                    if (i > 0) {
+                        addReference(components.get(i), components.get(0));
+                    }
+                    break;
+                case CLUSTERS:
+                    final int cluster = i - i % CLUSTER_SIZE;
+                    final int clusterSize = Math.min(CLUSTER_SIZE, size - cluster);
+                    addReference(components.get(i), components.get(cluster + (i + 1) % clusterSize));
+                    addReference(components.get(i), components.get(cluster + (i + 3) % clusterSize));
+                    if (i == cluster && cluster > 0) {
+                        addReference(components.get(i), components.get(cluster - 1));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported topology: " + topology);
+            }
+        }
+    }
+
+    private ComponentConfigurationDTO addComponent(final int index) {
+        final ComponentDescriptionDTO description = new ComponentDescriptionDTO();
+
+        description.name = "synthetic.Component" + index;
+        description.bundle = new BundleDTO();
+        description.bundle.id = index % BUNDLES;
+        description.bundle.symbolicName = "synthetic.bundle" + description.bundle.id;
+        description.serviceInterfaces = new String[] { description.name };
+        description.references = new ReferenceDTO[0];
+
+        final ComponentConfigurationDTO configuration = new ComponentConfigurationDTO();
+
+        configuration.id = index + 1L;
+        configuration.description = description;
+        configuration.state = ACTIVE;
+        configuration.properties = new HashMap<>();
+        configuration.satisfiedReferences = new SatisfiedReferenceDTO[0];
+        configuration.unsatisfiedReferences = new UnsatisfiedReferenceDTO[0];
+
+        descriptions.add(description);
+        configurations.put(description, Collections.singletonList(configuration));
+
+        return configuration;
+    }
+
+    private static void addReference(final ComponentConfigurationDTO source, final ComponentConfigurationDTO target) {
+        final ServiceReferenceDTO service = new ServiceReferenceDTO();
+
+        service.id = target.id;
+        service.properties = new HashMap<>();
+        service.properties.put("component.name", target.description.name);
+        service.properties.put("component.id", target.id);
+        service.properties.put("objectClass", target.description.serviceInterfaces);
+
+        final ReferenceDTO reference = new ReferenceDTO();
+
+        reference.name = "reference" + source.description.references.length;
+        reference.interfaceName = target.description.serviceInterfaces[0];
+        reference.cardinality = "1..1";
+        reference.policy = "static";
+        reference.policyOption = "reluctant";
+
+        final SatisfiedReferenceDTO satisfied = new SatisfiedReferenceDTO();
+
+        satisfied.name = reference.name;
+        satisfied.boundServices = new ServiceReferenceDTO[] { service };
+
+        source.description.references = append(source.description.references, reference);
+        source.satisfiedReferences = append(source.satisfiedReferences, satisfied);
+    }
+
+    private static <T> T[] append(final T[] array, final T element) {
+        final T[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = element;
+        return result;
+    }
+
+    @Override
+    public Collection<ComponentDescriptionDTO> getComponentDescriptionDTOs(final Bundle... bundles) {
+        return descriptions;
+    }
+
+    @Override
+    public ComponentDescriptionDTO getComponentDescriptionDTO(final Bundle bundle, final String name) {
+        return descriptions.stream().filter(d -> d.name.equals(name)).findAny().orElse(null);
+    }
+
+    @Override
+    public Collection<ComponentConfigurationDTO> getComponentConfigurationDTOs(
+            final ComponentDescriptionDTO description) {
+        if (!isComponentEnabled(description)) {
+            return Collections.emptyList();
+        }
+        return configurations.getOrDefault(description, Collections.emptyList());
+    }
+
+    @Override
+    public boolean isComponentEnabled(final ComponentDescriptionDTO description) {
+        return !disabledComponents.contains(description.name);
+    }
+
+    /**
+     * Enables the specified component synchronously, i.e. its configurations
+     * are served again once the returned promise is resolved
+     */
+    @Override
+    public Promise<Void> enableComponent(final ComponentDescriptionDTO description) {
+        disabledComponents.remove(description.name);
+        return Promises.resolved(null);
+    }
+
+    /**
+     * Disables the specified component synchronously, i.e. none of its
+     * configurations is served until it is enabled again
+     */
+    @Override
+    public Promise<Void> disableComponent(final ComponentDescriptionDTO description) {
+        disabledComponents.add(description.name);
+        return Promises.resolved(null);
+    }
+
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * A compact, read-only representation of the Service Component Runtime (SCR)
+ * graph.
+ *
+ * <p>
+ * The vertices are identified by consecutive indices from {@code 0} to
+ * {@code getVertexCount() - 1} and only their identity (name, configuration
+ * identifier and state) is kept on the heap. The edges are stored as
+ * compressed sparse rows, i.e. the successors of all the vertices are kept in
+ * a single array. The full DTOs of a vertex are only loaded from the runtime
+ * on demand using {@link #getComponent(int)}.
+ *
+ * <p>
+ * This representation occupies a fraction of the memory of the
+ * {@link org.jgrapht.Graph} based representation and is therefore suitable to
+ * keep the history of the graph.
+ *
+ * @noimplement This interface is not intended to be implemented by consumers.
+ * @noextend This interface is not intended to be extended by consumers.
+ *
+ * @ThreadSafe
+ *
+ * @see ScrGraph#getCompactGraph()
+ */
+@ProviderType
+public interface CompactScrGraph {
+
+    /**
+     * Returns the SCR change count this graph has been built from
+     *
+     * @return the change count or {@code -1} if the runtime does not
+     *         provide a change count
+     */
+    long getChangeCount();
+
+    /**
+     * Returns the number of vertices
+     *
+     * @return the number of vertices
+     */
+    int getVertexCount();
+
+    /**
+     * Returns the number of edges
+     *
+     * @return the number of edges
+     */
+    int getEdgeCount();
+
+    /**
+     * Returns the index of the vertex with the specified configuration
+     * identifier
+     *
+     * @param configurationId the configuration identifier
+     * @return the index or {@code -1} if no such vertex exists
+     */
+    int indexOf(long configurationId);
+
+    /**
+     * Returns the component name of the specified vertex
+     *
+     * @param vertex the vertex index
+     * @return the component name
+     *
+     * @throws IndexOutOfBoundsException if the vertex does not exist
+     */
+    String getName(int vertex);
+
+    /**
+     * Returns the configuration identifier of the specified vertex
+     *
+     * @param vertex the vertex index
+     * @return the configuration identifier
+     *
+     * @throws IndexOutOfBoundsException if the vertex does not exist
+     */
+    long getConfigurationId(int vertex);
+
+    /**
+     * Returns the configuration state of the specified vertex
+     *
+     * @param vertex the vertex index
+     * @return the configuration state
+     *
+     * @throws IndexOutOfBoundsException if the vertex does not exist
+     */
+    int getState(int vertex);
+
+    /**
+     * Returns the number of components the specified vertex depends on
+     *
+     * @param vertex the vertex index
+     * @return the number of successors
+     *
+     * @throws IndexOutOfBoundsException if the vertex does not exist
+     */
+    int getOutDegree(int vertex);
+
+    /**
+     * Returns a successor of the specified vertex, i.e. a component the
+     * vertex depends on
+     *
+     * @param vertex the vertex index
+     * @param index the index of the successor between {@code 0} and
+     *            {@code getOutDegree(vertex) - 1}
+     * @return the vertex index of the successor
+     *
+     * @throws IndexOutOfBoundsException if the vertex or the successor does
+     *             not exist
+     */
+    int getSuccessor(int vertex, int index);
+
+    /**
+     * Loads the full DTOs of the specified vertex from the runtime
+     *
+     * @param vertex the vertex index
+     * @return the component or {@code null} if the component configuration
+     *         does not exist anymore in the runtime or the vertex does not
+     *         represent a component configuration
+     *
+     * @throws IndexOutOfBoundsException if the vertex does not exist
+     */
+    ScrComponent getComponent(int vertex);
+
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for the measured activation latency of a component
+ * configuration.
+ *
+ * <p>
+ * The latencies are measured from the moment the configuration has been
+ * observed to be satisfied. The precision is limited by the interval in which
+ * the runtime is inspected.
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @NotThreadSafe
+ *
+ * @see ScrGraph#getActivationTimings()
+ */
+public class ScrActivationTiming extends DTO {
+
+    /**
+     * The name of the component
+     */
+    public String name;
+
+    /**
+     * The identifier of the component configuration
+     */
+    public long configurationId;
+
+    /**
+     * The time in nanoseconds from SATISFIED to ACTIVE or {@code -1} if the
+     * configuration has not been observed to be active yet
+     */
+    public long activationNanos;
+
+    /**
+     * The time in nanoseconds from SATISFIED to the first use of the service
+     * provided by the configuration or {@code -1} if no use has been observed
+     * yet
+     */
+    public long firstUseNanos;
+
+}
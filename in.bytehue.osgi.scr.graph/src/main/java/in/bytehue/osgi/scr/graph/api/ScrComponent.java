@@ -16,8 +16,10 @@
 package in.bytehue.osgi.scr.graph.api;
 
 import org.osgi.dto.DTO;
+import org.osgi.framework.dto.ServiceReferenceDTO;
 import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
 import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+import org.osgi.service.component.runtime.dto.UnsatisfiedReferenceDTO;
 
 /**
  * Data Transfer Object for an instance of SCR component.
@@ -25,6 +27,22 @@ import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
  * <p>
  * A SCR component contains associated description and its configuration.
  *
+ * <p>
+ * In the full-fidelity mode, the graph also contains vertices that do not
+ * represent any DS component configuration (see {@link ScrComponentType}).
+ * Such vertices still provide a description and a configuration which are
+ * synthesized as follows such that they can be handled uniformly:
+ * <ul>
+ * <li>{@link ScrComponentType#SERVICE}: the name of the description is the
+ * service interface, the bundle is the registering bundle and the
+ * configuration identifier is the negated {@code service.id}</li>
+ * <li>{@link ScrComponentType#UNSATISFIED_REFERENCE}: the name of the
+ * description is the service interface followed by the target filter if any,
+ * the bundle is the bundle of the referencing component and the configuration
+ * identifier is a negative number derived from the identifier of the
+ * referencing configuration and the position of the reference</li>
+ * </ul>
+ *
  * @noextend This class is not intended to be extended by consumers.
  *
  * @NotThreadSafe
@@ -44,4 +62,27 @@ public class ScrComponent extends DTO {
      */
     public ComponentConfigurationDTO configuration;
 
+    /**
+     * The type of the vertex
+     */
+    public ScrComponentType type = ScrComponentType.COMPONENT;
+
+    /**
+     * The service if this is a {@link ScrComponentType#SERVICE} vertex,
+     * otherwise {@code null}
+     */
+    public ServiceReferenceDTO service;
+
+    /**
+     * The reference if this is a {@link ScrComponentType#UNSATISFIED_REFERENCE}
+     * vertex, otherwise {@code null}
+     */
+    public UnsatisfiedReferenceDTO reference;
+
+    /**
+     * The namespace of the runtime the vertex has been collected from if this
+     * is a vertex of an aggregated graph, otherwise {@code null}
+     */
+    public String namespace;
+
 }
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+/**
+ * The types of the vertices of the Service Component Runtime (SCR) graph.
+ *
+ * <p>
+ * Unless the full-fidelity mode is enabled, the graph only consists of
+ * {@link #COMPONENT} vertices.
+ *
+ * @see ScrComponent#type
+ */
+public enum ScrComponentType {
+
+    /**
+     * A configuration of a DS component
+     */
+    COMPONENT,
+
+    /**
+     * A service that has not been registered by any of the DS components of
+     * the graph, identified by its {@code service.id}
+     */
+    SERVICE,
+
+    /**
+     * An unsatisfied reference of a DS component configuration
+     */
+    UNSATISFIED_REFERENCE
+
+}
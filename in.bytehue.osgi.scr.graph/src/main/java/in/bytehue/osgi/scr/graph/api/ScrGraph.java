@@ -15,8 +15,13 @@
  ******************************************************************************/
 package in.bytehue.osgi.scr.graph.api;
 
+import java.io.OutputStream;
 import java.io.Writer;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
@@ -43,6 +48,8 @@ import org.osgi.annotation.versioning.ProviderType;
  * @ThreadSafe
  *
  * @see ScrComponent
+ * @see ScrGraphSnapshot
+ * @see CompactScrGraph
  * @see Graph
  * @see DefaultEdge
  */
@@ -59,11 +66,129 @@ public interface ScrGraph {
      * <p>
      * <b>Also note that</b>, this is an <b>idempotent operation</b> and
      * hence multiple invocations of this method will result in same results.
+     * The graph always reflects the current state of the runtime, i.e. it is
+     * never served from the cached {@link #getSnapshot() snapshot}.
+     *
+     * <p>
+     * <b>Moreover</b>, a new modifiable graph is built on every invocation
+     * unless the live mode is enabled. In the live mode, the returned graph
+     * is a read-only view that is shared by all consumers until the next
+     * change of the runtime. Any attempt to modify it results in an
+     * {@link UnsupportedOperationException}.
      *
      * @return the {@link Graph} instance
      */
     Graph<ScrComponent, DefaultEdge> getGraph();
 
+    /**
+     * Returns a graph of the components matching the specified filter.
+     *
+     * <p>
+     * The filter is applied while the DTOs are collected from the runtime
+     * such that the excluded components are never materialized. The edges of
+     * the returned graph only connect the included components (and the plain
+     * services in the full-fidelity mode).
+     *
+     * <p>
+     * <b>Note that</b>, the filtered graphs are not cached and every
+     * invocation queries the runtime.
+     *
+     * @param filter the filter to apply
+     *
+     * @return the {@link Graph} instance (will never be {@code null})
+     */
+    Graph<ScrComponent, DefaultEdge> getGraph(ScrGraphFilter filter);
+
+    /**
+     * Asynchronously returns the graph of the components matching the
+     * specified filter within the specified deadline.
+     *
+     * <p>
+     * The operation runs on a dedicated bounded executor instead of the
+     * caller's thread. If the deadline passes while the DTOs are collected,
+     * the runtime is not queried anymore and the graph of the components that
+     * have been collected until then is returned as a truncated result. The
+     * operation can be cancelled cooperatively by cancelling the
+     * {@link java.util.concurrent.CompletableFuture} of the returned stage.
+     *
+     * <p>
+     * <b>Note that</b>, the returned stage is completed exceptionally with a
+     * {@link java.util.concurrent.RejectedExecutionException} if too many
+     * operations are pending and is cancelled if the service is released
+     * before the operation completes.
+     *
+     * @param filter the filter to apply or {@code null} to include all the
+     *            components
+     * @param deadline the maximum duration of the operation including the
+     *            time it is queued or {@code null} for no limit
+     *
+     * @return the {@link CompletionStage} of the (partial) graph (will never
+     *         be {@code null})
+     */
+    CompletionStage<ScrGraphResult<Graph<ScrComponent, DefaultEdge>>> getGraphAsync( //
+            ScrGraphFilter filter, //
+            Duration deadline);
+
+    /**
+     * Returns an immutable snapshot of the Service Component Runtime (SCR)
+     * graph
+     *
+     * <p>
+     * <b>Note that</b>, the snapshot is cached and shared by all consumers
+     * as long as the {@code service.changecount} property of the SCR service
+     * registration does not change. Consumers that only inspect the graph
+     * should prefer this method over {@link #getGraph()} which builds a new
+     * graph on every invocation unless the live mode is enabled.
+     *
+     * <p>
+     * <b>Also note that</b>, SCR implementations might update the change
+     * count with a delay to coalesce bursts of changes (e.g. Apache Felix SCR
+     * delays it by {@code ds.service.changecount.timeout}, 5 seconds by
+     * default). Hence, the snapshot might not reflect the changes within that
+     * delay. Consumers requiring the current state should use
+     * {@link #getGraph()} instead. This does not apply to the live mode where
+     * the snapshot is taken from the live graph which is reconciled with the
+     * runtime on every invocation.
+     *
+     * @return the {@link ScrGraphSnapshot} instance (will never be {@code null})
+     */
+    ScrGraphSnapshot getSnapshot();
+
+    /**
+     * Returns the specified vertex with its complete description and
+     * configuration fetched from the runtime.
+     *
+     * <p>
+     * In the lightweight mode, the vertices only retain the identity of their
+     * configurations and share a stripped description per component. This
+     * method can be used to fetch the references, the properties and the bound
+     * services of a single vertex on demand. The synthesized vertices of the
+     * full-fidelity mode are returned as they are.
+     *
+     * @param component the vertex to fetch
+     *
+     * @return a new {@link ScrComponent} with the complete DTOs or {@code null}
+     *         if the configuration does not exist anymore or belongs to
+     *         another runtime
+     */
+    ScrComponent getFullComponent(ScrComponent component);
+
+    /**
+     * Returns a compact representation of the current snapshot of the
+     * Service Component Runtime (SCR) graph
+     *
+     * <p>
+     * <b>Note that</b>, the compact graph only keeps the identity of the
+     * components and the references between them. It does not hold any
+     * reference to the DTOs and is therefore suitable to keep the history of
+     * the graph.
+     *
+     * @return the {@link CompactScrGraph} instance (will never be {@code null})
+     *
+     * @see #getSnapshot()
+     */
+    CompactScrGraph getCompactGraph();
+
     /**
      * Returns a list containing all the list of components that
      * for a cycle (SCR)
@@ -77,10 +202,164 @@ public interface ScrGraph {
      * <b>Also note that</b>, this is an <b>idempotent operation</b> and
      * hence multiple invocations of this method will result in same results.
      *
+     * <p>
+     * <b>Moreover</b>, the cycles are cached per strongly connected
+     * component and are only enumerated again for the parts of the graph
+     * that have changed. The returned list is therefore unmodifiable.
+     *
+     * <p>
+     * <b>Finally</b>, the cycles are searched in the current
+     * {@link #getSnapshot() snapshot} and might therefore miss the changes
+     * that SCR has not yet published in its change count.
+     *
      * @return the {@link List} of all cycles (will never be {@code null})
      */
     List<List<ScrComponent>> getCycles();
 
+    /**
+     * Returns the strongly connected components of the Service Component
+     * Runtime (SCR) graph that contain a cycle
+     *
+     * <p>
+     * A component is part of a cycle if and only if it belongs to one of the
+     * returned strongly connected components, i.e. a group of more than one
+     * component where every component transitively depends on every other or
+     * a single component that depends on itself. In contrast to
+     * {@link #getCycles()}, this does not enumerate the individual simple
+     * cycles and hence takes time linear to the size of the graph.
+     *
+     * <p>
+     * <b>Note that</b>, the components of every group as well as the groups
+     * are ordered by the configuration identifiers. Like {@link #getCycles()},
+     * the groups are computed from the current {@link #getSnapshot()
+     * snapshot} and might not reflect the most recent changes yet.
+     *
+     * @return the unmodifiable {@link List} of cyclic strongly connected
+     *         components (will never be {@code null})
+     *
+     * @see #getCycles()
+     */
+    List<List<ScrComponent>> getStronglyConnectedComponents();
+
+    /**
+     * Returns all simple cycles (SCR) that consist of blocking edges only
+     *
+     * <p>
+     * An edge is blocking if its reference is mandatory and static (see
+     * {@link ScrReferenceEdge#isBlocking()}). In contrast to the cycles
+     * returned by {@link #getCycles()}, which SCR might well resolve at
+     * runtime by binding an optional or dynamic reference later on, none of
+     * the components of a blocking cycle can ever be activated.
+     *
+     * <p>
+     * <b>Note that</b>, the cycles are searched in the graph that only
+     * contains the blocking edges which is usually much sparser than the
+     * whole graph. Like {@link #getCycles()}, the cycles are cached per
+     * strongly connected component and the returned list is unmodifiable.
+     * The pruned graph is derived from the current {@link #getSnapshot()
+     * snapshot} which might lag behind the runtime.
+     *
+     * @return the {@link List} of all blocking cycles (will never be
+     *         {@code null})
+     *
+     * @see #getCycles()
+     * @see ScrReferenceEdge
+     */
+    List<List<ScrComponent>> getBlockingCycles();
+
+    /**
+     * Asynchronously returns all simple cycles (SCR) that can be found within
+     * the specified deadline.
+     *
+     * <p>
+     * The operation runs on the same bounded executor as
+     * {@link #getGraphAsync(ScrGraphFilter, Duration)}. Both the collection
+     * of the DTOs and the enumeration of the cycles stop as soon as the
+     * deadline passes or the operation is cancelled. The cycles that have been
+     * found until the deadline are returned as a truncated result.
+     *
+     * <p>
+     * <b>Note that</b>, the order of the cycles is the order of
+     * {@link #streamCycles(int, int, Duration)}.
+     *
+     * @param deadline the maximum duration of the operation including the
+     *            time it is queued or {@code null} for no limit
+     *
+     * @return the {@link CompletionStage} of the (partial) list of cycles
+     *         (will never be {@code null})
+     */
+    CompletionStage<ScrGraphResult<List<List<ScrComponent>>>> getCyclesAsync(Duration deadline);
+
+    /**
+     * Returns a lazily populated stream of the simple cycles (SCR)
+     *
+     * <p>
+     * In contrast to {@link #getCycles()}, the cycles are enumerated one by
+     * one while the stream is consumed. The enumeration stops as soon as
+     * the consumer stops pulling from the stream or any of the specified
+     * bounds is reached. This is the preferred way to inspect densely wired
+     * runtimes where the number of simple cycles can grow exponentially.
+     *
+     * <p>
+     * <b>Note that</b>, the order of the streamed cycles is stable for an
+     * unchanged runtime but is not necessarily the order of the cycles
+     * returned by {@link #getCycles()}. The cycles are enumerated in the graph
+     * of the current {@link #getSnapshot() snapshot} which does not
+     * necessarily contain the changes within the change count delay of SCR.
+     *
+     * @param maxCycles the maximum number of cycles to enumerate or {@code 0}
+     *            to enumerate all of them
+     * @param maxLength the maximum number of components in a cycle or
+     *            {@code 0} for no limit (longer cycles are skipped)
+     * @param budget the maximum duration of the enumeration or {@code null}
+     *            for no limit
+     *
+     * @return the {@link Stream} of cycles (will never be {@code null})
+     *
+     * @throws IllegalArgumentException if {@code maxCycles} or
+     *             {@code maxLength} is negative
+     *
+     * @see #getCycles()
+     */
+    Stream<List<ScrComponent>> streamCycles(int maxCycles, int maxLength, Duration budget);
+
+    /**
+     * Passes the simple cycles (SCR) one by one to the specified action and
+     * reports whether the enumeration has been cut off
+     *
+     * <p>
+     * The cycles are enumerated in the same order and with the same bounds as
+     * {@link #streamCycles(int, int, Duration)}. In contrast to the stream,
+     * the returned result tells whether any further cycle might exist, i.e.
+     * whether the time budget has been exhausted or the maximum number of
+     * cycles has been reached while another cycle exists.
+     *
+     * <p>
+     * <b>Note that</b>, to detect the latter, one more cycle is searched once
+     * the maximum number of cycles has been passed to the action.
+     *
+     * @param maxCycles the maximum number of cycles to enumerate or {@code 0}
+     *            to enumerate all of them
+     * @param maxLength the maximum number of components in a cycle or
+     *            {@code 0} for no limit (longer cycles are skipped)
+     * @param budget the maximum duration of the enumeration or {@code null}
+     *            for no limit
+     * @param action the action to perform on every cycle
+     *
+     * @return the number of cycles passed to the action (will never be
+     *         {@code null})
+     *
+     * @throws IllegalArgumentException if {@code maxCycles} or
+     *             {@code maxLength} is negative
+     *
+     * @see #streamCycles(int, int, Duration)
+     */
+    ScrGraphResult<Integer> forEachCycle( //
+            int maxCycles, //
+            int maxLength, //
+            Duration budget, //
+            Consumer<? super List<ScrComponent>> action);
+
     /**
      * Returns the graph cycle containing the specified components
      *
@@ -92,6 +371,8 @@ public interface ScrGraph {
      * <p>
      * <b>Also note that</b>, this is an <b>idempotent operation</b> and
      * hence multiple invocations of this method will result in same results.
+     * The references of the edges are looked up in the current
+     * {@link #getSnapshot() snapshot} which might be outdated.
      *
      * @param components the components that are part of the cycle
      *
@@ -106,20 +387,194 @@ public interface ScrGraph {
      * Returns the graph containing all the cycles.
      *
      * <p>
-     * <b>Note that</b>, by default it makes use of Tarjan algorithm to
-     * find out all the cycles and it will not include any service reference
-     * which is not exported using OSGi Declarative Services.
+     * <b>Note that</b>, the graph is induced by the cyclic strongly connected
+     * components which contain exactly the components and the references of
+     * all the simple cycles. Hence, no simple cycle needs to be enumerated to
+     * create it. It will not include any service reference which is not
+     * exported using OSGi Declarative Services.
      *
      * <p>
      * <b>Also note that</b>, this is an <b>idempotent operation</b> and
      * hence multiple invocations of this method will result in same results.
+     * As it is induced from the current {@link #getSnapshot() snapshot}, it
+     * might not reflect the changes within the change count delay of SCR.
      *
      * @return the {@link Graph} instance
      *
      * @see #getCycles()
+     * @see #getStronglyConnectedComponents()
      */
     Graph<ScrComponent, DefaultEdge> getCyclesAsGraph();
 
+    /**
+     * Returns the components the specified component transitively depends
+     * on, i.e. the components whose services are (indirectly) bound by the
+     * specified component.
+     *
+     * <p>
+     * <b>Note that</b>, the queries are answered from a reachability index of
+     * the current snapshot which is only rebuilt on SCR changes. Hence,
+     * repeated queries do not need to traverse the graph again. However, the
+     * answers might be outdated as long as SCR delays the update of its change
+     * count (see {@link #getSnapshot()}).
+     *
+     * @param configurationId the configuration identifier of the component
+     * @param maxDepth the maximum number of dependency hops to follow
+     *            ({@code 0} for no limit)
+     *
+     * @return the dependencies sorted by their configuration identifiers (will
+     *         never be {@code null})
+     *
+     * @throws IllegalArgumentException if no such component exists
+     */
+    List<ScrComponent> getDependencies(long configurationId, int maxDepth);
+
+    /**
+     * Returns the components that transitively depend on the specified
+     * component, i.e. the components that are affected if the specified
+     * component goes away.
+     *
+     * <p>
+     * <b>Note that</b>, the query is answered from the same reachability
+     * index as {@link #getDependencies(long, int)} and hence might be
+     * outdated as well.
+     *
+     * @param configurationId the configuration identifier of the component
+     * @param maxDepth the maximum number of dependency hops to follow
+     *            ({@code 0} for no limit)
+     *
+     * @return the dependents sorted by their configuration identifiers (will
+     *         never be {@code null})
+     *
+     * @throws IllegalArgumentException if no such component exists
+     *
+     * @see #getDependencies(long, int)
+     */
+    List<ScrComponent> getDependents(long configurationId, int maxDepth);
+
+    /**
+     * Returns a shortest dependency path between the specified components
+     *
+     * <p>
+     * <b>Note that</b>, the path is searched in the reachability index of the
+     * current snapshot like {@link #getDependencies(long, int)}.
+     *
+     * @param fromConfigurationId the configuration identifier of the depending
+     *            component
+     * @param toConfigurationId the configuration identifier of the component
+     *            that is (indirectly) depended on
+     *
+     * @return the components of the path including both the ends or an empty
+     *         list if the first component does not depend on the second (will
+     *         never be {@code null})
+     *
+     * @throws IllegalArgumentException if any of the components does not
+     *             exist
+     *
+     * @see #getDependencies(long, int)
+     */
+    List<ScrComponent> getShortestPath(long fromConfigurationId, long toConfigurationId);
+
+    /**
+     * Computes the differences between the specified snapshots.
+     *
+     * <p>
+     * The components are matched by their names and configuration
+     * identifiers. The snapshots are indexed in hash tables such that the
+     * differences are computed in linear time of the sizes of the graphs.
+     *
+     * @param from the older snapshot
+     * @param to the newer snapshot
+     *
+     * @return the {@link ScrGraphDiff} instance (will never be {@code null})
+     */
+    ScrGraphDiff diff(ScrGraphSnapshot from, ScrGraphSnapshot to);
+
+    /**
+     * Persists the current snapshot in the snapshot store of the bundle data
+     * area.
+     *
+     * <p>
+     * The snapshots are appended to a compact binary file. If the configured
+     * capacity of the store would be exceeded, the oldest snapshots are
+     * evicted.
+     *
+     * @return the stored snapshot (will never be {@code null})
+     *
+     * @throws IllegalStateException if the snapshot store is not available
+     */
+    ScrGraphSnapshot storeSnapshot();
+
+    /**
+     * Returns the persisted snapshots, the oldest first.
+     *
+     * <p>
+     * <b>Note that</b>, the graphs of the returned snapshots are not kept in
+     * memory but read from the store whenever they are requested. The read
+     * components only contain the name and the bundle of the description and
+     * the identifier and the state of the configuration as well as the type of
+     * the vertex. Requesting the graph
+     * of a snapshot that has been evicted in the meantime results in an
+     * {@link IllegalStateException}.
+     *
+     * @return the persisted snapshots (will never be {@code null})
+     */
+    List<ScrGraphSnapshot> getStoredSnapshots();
+
+    /**
+     * Returns the statistics of the operations of this graph.
+     *
+     * <p>
+     * For every operation, the number of invocations and a histogram of their
+     * latencies are recorded since the activation. The recording does not
+     * allocate and hence the statistics can be collected in production.
+     *
+     * @return the {@link ScrGraphStatistics} instance (will never be
+     *         {@code null})
+     */
+    ScrGraphStatistics getStatistics();
+
+    /**
+     * Returns the measured activation times of the component configurations.
+     *
+     * <p>
+     * For every configuration, the time from becoming satisfied to becoming
+     * active and the time to the first use of its service are recorded. Only
+     * the configurations that have been satisfied after the activation
+     * tracking has been enabled are measured and only the latest samples are
+     * retained.
+     *
+     * <p>
+     * <b>Note that</b>, the activation tracking needs to be enabled in the
+     * configuration. Otherwise, the returned list is empty.
+     *
+     * @return the measured activation times (will never be {@code null})
+     */
+    List<ScrActivationTiming> getActivationTimings();
+
+    /**
+     * Returns the startup ordering analysis of the Service Component Runtime
+     * (SCR)
+     *
+     * <p>
+     * The analysis condenses the cycles into strongly connected components
+     * and layers the components topologically such that every component
+     * only depends on components of the previous layers. It also returns the
+     * longest dependency chain (the critical path) which determines the
+     * minimum startup duration even if every layer is activated in parallel.
+     *
+     * <p>
+     * <b>Note that</b>, the components are weighted by their measured
+     * activation times if available. Otherwise, every component has the same
+     * weight and the critical path is the chain with the most components.
+     * The analysis is always based on the current state of the runtime (see
+     * {@link #getGraph()}).
+     *
+     * @return the {@link ScrStartupAnalysis} instance (will never be
+     *         {@code null})
+     */
+    ScrStartupAnalysis getStartupAnalysis();
+
     /**
      * Exports the specified graph into DOT representation.
      *
@@ -128,4 +583,35 @@ public interface ScrGraph {
      */
     void exportGraph(Graph<ScrComponent, DefaultEdge> graph, Writer writer);
 
+    /**
+     * Exports the specified graph into the specified format.
+     *
+     * <p>
+     * <b>Note that</b>, the graph is streamed directly to the writer and
+     * the writer is flushed periodically. The writer is not closed.
+     *
+     * @param graph the graph to be exported
+     * @param writer the writer to which the graph to be exported
+     * @param format the format of the export
+     *
+     * @throws java.io.UncheckedIOException if the graph cannot be written
+     */
+    void exportGraph(Graph<ScrComponent, DefaultEdge> graph, Writer writer, ScrGraphFormat format);
+
+    /**
+     * Exports the specified graph into the specified format using the
+     * {@code UTF-8} encoding.
+     *
+     * <p>
+     * <b>Note that</b>, the graph is streamed directly to the output stream
+     * and the stream is flushed periodically. The stream is not closed.
+     *
+     * @param graph the graph to be exported
+     * @param out the output stream to which the graph to be exported
+     * @param format the format of the export
+     *
+     * @throws java.io.UncheckedIOException if the graph cannot be written
+     */
+    void exportGraph(Graph<ScrComponent, DefaultEdge> graph, OutputStream out, ScrGraphFormat format);
+
 }
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.annotation.versioning.ProviderType;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+
+/**
+ * Merges the graphs of several Service Component Runtime (SCR) instances, for
+ * example of several frameworks running in the same JVM, into a single graph.
+ *
+ * <p>
+ * Every vertex of an aggregated graph carries the namespace of the runtime it
+ * has been collected from (see {@link ScrComponent#namespace}) as the
+ * configuration identifiers are only unique within a single runtime. The
+ * runtimes are queried in parallel and the strings of the descriptions that
+ * are equal across the runtimes are shared.
+ *
+ * @noimplement This interface is not intended to be implemented by consumers.
+ * @noextend This interface is not intended to be extended by consumers.
+ *
+ * @ThreadSafe
+ *
+ * @see ScrGraph
+ */
+@ProviderType
+public interface ScrGraphAggregator {
+
+    /**
+     * The service property of a {@link ServiceComponentRuntime} registration
+     * that specifies the namespace of its vertices. If absent, the framework
+     * UUID property or the service identifier is used instead.
+     */
+    String NAMESPACE_PROPERTY = "in.bytehue.osgi.scr.graph.namespace";
+
+    /**
+     * Returns the namespaces of the runtimes that are currently aggregated
+     *
+     * @return the namespaces (will never be {@code null})
+     */
+    List<String> getNamespaces();
+
+    /**
+     * Returns the merged graph of all the registered
+     * {@link ServiceComponentRuntime} services
+     *
+     * @return the {@link Graph} instance (will never be {@code null})
+     */
+    Graph<ScrComponent, DefaultEdge> getAggregatedGraph();
+
+    /**
+     * Returns the merged graph of the specified runtimes. This allows launchers
+     * that manage several frameworks to aggregate runtimes that are not
+     * registered in the framework of this bundle.
+     *
+     * @param runtimes the runtimes keyed by their namespaces
+     *
+     * @return the {@link Graph} instance (will never be {@code null})
+     */
+    Graph<ScrComponent, DefaultEdge> aggregate(Map<String, ServiceComponentRuntime> runtimes);
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import java.util.List;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for the differences between two snapshots of the
+ * Service Component Runtime (SCR) graph.
+ *
+ * <p>
+ * The components of both snapshots are matched by their names and
+ * configuration identifiers. The added components and the state changes refer
+ * to the components of the newer snapshot whereas the removed components refer
+ * to the components of the older snapshot.
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @NotThreadSafe
+ *
+ * @see ScrGraph#diff(ScrGraphSnapshot, ScrGraphSnapshot)
+ */
+public class ScrGraphDiff extends DTO {
+
+    /**
+     * Data Transfer Object for a wire between two components
+     */
+    public static class Edge extends DTO {
+
+        /**
+         * The component that references the service
+         */
+        public ScrComponent source;
+
+        /**
+         * The component that provides the referenced service
+         */
+        public ScrComponent target;
+
+    }
+
+    /**
+     * Data Transfer Object for a component whose state has changed
+     */
+    public static class StateChange extends DTO {
+
+        /**
+         * The component of the newer snapshot
+         */
+        public ScrComponent component;
+
+        /**
+         * The state of the component in the older snapshot
+         */
+        public int previousState;
+
+        /**
+         * The state of the component in the newer snapshot
+         */
+        public int state;
+
+    }
+
+    /**
+     * The change count of the older snapshot
+     */
+    public long fromChangeCount;
+
+    /**
+     * The change count of the newer snapshot
+     */
+    public long toChangeCount;
+
+    /**
+     * The components that only exist in the newer snapshot
+     */
+    public List<ScrComponent> addedComponents;
+
+    /**
+     * The components that only exist in the older snapshot
+     */
+    public List<ScrComponent> removedComponents;
+
+    /**
+     * The wires that only exist in the newer snapshot
+     */
+    public List<Edge> addedEdges;
+
+    /**
+     * The wires that only exist in the older snapshot
+     */
+    public List<Edge> removedEdges;
+
+    /**
+     * The components that exist in both snapshots with different states
+     */
+    public List<StateChange> stateChanges;
+
+    /**
+     * Returns {@code true} if both snapshots are equivalent
+     *
+     * @return {@code true} if nothing has changed, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        // @formatter:off
+        return addedComponents.isEmpty() &&
+               removedComponents.isEmpty() &&
+               addedEdges.isEmpty() &&
+               removedEdges.isEmpty() &&
+               stateChanges.isEmpty();
+        // @formatter:on
+    }
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+/**
+ * Defines the topics and the properties of the events that are posted to the
+ * OSGi Event Admin when the cycle watchdog observes a change of the cycles of
+ * the Service Component Runtime (SCR) graph.
+ *
+ * <p>
+ * A cycle is reported as a strongly connected component of the graph and is
+ * identified by the names of the participating components. Hence, the
+ * reactivation of the same components does not raise new events.
+ */
+public final class ScrGraphEventConstants {
+
+    private ScrGraphEventConstants() {
+        throw new IllegalAccessError("Cannot be instantiated");
+    }
+
+    /**
+     * The topic prefix of all events
+     */
+    public static final String TOPIC_PREFIX = "in/bytehue/osgi/scr/graph/";
+
+    /**
+     * The topic of the event that is posted when a cycle has been introduced
+     */
+    public static final String TOPIC_CYCLE_DETECTED = TOPIC_PREFIX + "CYCLE_DETECTED";
+
+    /**
+     * The topic of the event that is posted when a previously reported cycle
+     * has disappeared
+     */
+    public static final String TOPIC_CYCLE_RESOLVED = TOPIC_PREFIX + "CYCLE_RESOLVED";
+
+    /**
+     * The event property holding the sorted names of the components of the
+     * cycle ({@code String[]})
+     */
+    public static final String COMPONENT_NAMES = "component.names";
+
+    /**
+     * The event property holding the configuration identifiers of the
+     * components of the cycle ({@code long[]}), only set for detected cycles
+     */
+    public static final String CONFIGURATION_IDS = "configuration.ids";
+
+    /**
+     * The event property holding the SCR change count at which the change has
+     * been observed ({@code Long})
+     */
+    public static final String CHANGE_COUNT = "change.count";
+
+}
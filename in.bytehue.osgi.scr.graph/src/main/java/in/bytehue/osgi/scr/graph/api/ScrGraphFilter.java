@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for restricting the components of the Service
+ * Component Runtime (SCR) graph.
+ *
+ * <p>
+ * A component is only part of the filtered graph if it matches all the
+ * specified criteria. A criterion that is not specified ({@code null} or
+ * {@code 0}) matches every component. The patterns support {@code *} as a
+ * wildcard for any sequence of characters.
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @NotThreadSafe
+ *
+ * @see ScrGraph#getGraph(ScrGraphFilter)
+ */
+public class ScrGraphFilter extends DTO {
+
+    /**
+     * The pattern of the symbolic name of the bundle declaring the component
+     */
+    public String bundleSymbolicName;
+
+    /**
+     * The pattern of the component name
+     */
+    public String name;
+
+    /**
+     * The bitwise OR of the accepted configuration states (see
+     * {@code ComponentConfigurationDTO}). If specified, the configurations
+     * of the accepted states are included even if they are not part of the
+     * unfiltered graph.
+     */
+    public int states;
+
+    /**
+     * The pattern of any of the service interfaces provided by the component
+     */
+    public String serviceInterface;
+
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+/**
+ * The formats supported by {@link ScrGraph} to export graphs.
+ *
+ * @see ScrGraph#exportGraph(org.jgrapht.Graph, java.io.Writer, ScrGraphFormat)
+ */
+public enum ScrGraphFormat {
+
+    /**
+     * The Graphviz DOT format
+     */
+    DOT,
+
+    /**
+     * The GraphML format
+     */
+    GRAPHML,
+
+    /**
+     * The JSON format comprising a {@code nodes} and an {@code edges} array
+     */
+    JSON
+
+}
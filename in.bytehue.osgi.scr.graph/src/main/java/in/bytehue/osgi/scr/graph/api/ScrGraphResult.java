@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for the result of a time-budgeted operation of the
+ * Service Component Runtime (SCR) graph.
+ *
+ * <p>
+ * If the deadline of the operation has passed before it could complete, the
+ * partial result that has been computed until then is returned and flagged as
+ * truncated.
+ *
+ * @param <T> the type of the value
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @NotThreadSafe
+ *
+ * @see ScrGraph#getGraphAsync(ScrGraphFilter, java.time.Duration)
+ * @see ScrGraph#getCyclesAsync(java.time.Duration)
+ * @see ScrGraph#forEachCycle(int, int, java.time.Duration, java.util.function.Consumer)
+ */
+public class ScrGraphResult<T> extends DTO {
+
+    /**
+     * The (partial) result of the operation
+     */
+    public T value;
+
+    /**
+     * {@code true} if the operation has been stopped by its deadline or its
+     * bounds and {@link #value} is therefore incomplete
+     */
+    public boolean truncated;
+
+}
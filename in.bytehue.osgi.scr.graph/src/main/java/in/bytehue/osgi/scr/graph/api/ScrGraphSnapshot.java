@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * An immutable view of the Service Component Runtime (SCR) graph at a
+ * specific point of time.
+ *
+ * <p>
+ * A snapshot is tagged with the value of the {@code service.changecount}
+ * property of the {@code ServiceComponentRuntime} service registration it has
+ * been built from. As long as the change count does not change, the very same
+ * snapshot is shared by all the consumers.
+ *
+ * @noimplement This interface is not intended to be implemented by consumers.
+ * @noextend This interface is not intended to be extended by consumers.
+ *
+ * @ThreadSafe
+ *
+ * @see ScrGraph#getSnapshot()
+ */
+@ProviderType
+public interface ScrGraphSnapshot {
+
+    /**
+     * Returns the SCR change count this snapshot has been built from
+     *
+     * @return the change count or {@code -1} if the runtime does not
+     *         provide a change count
+     */
+    long getChangeCount();
+
+    /**
+     * Returns the time this snapshot has been built at
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    long getTimestamp();
+
+    /**
+     * Returns the unmodifiable graph of this snapshot
+     *
+     * <p>
+     * <b>Note that</b>, any attempt to modify the returned graph will
+     * result in an {@link UnsupportedOperationException}.
+     *
+     * @return the {@link Graph} instance (will never be {@code null})
+     */
+    Graph<ScrComponent, DefaultEdge> getGraph();
+
+}
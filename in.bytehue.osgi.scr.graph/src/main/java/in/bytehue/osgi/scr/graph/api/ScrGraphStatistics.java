@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import java.util.List;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for the statistics of the Service Component Runtime
+ * (SCR) graph.
+ *
+ * <p>
+ * The following operations are measured:
+ * <ul>
+ * <li>{@value #COLLECTION} - querying the DTOs from the runtime</li>
+ * <li>{@value #EDGE_RESOLUTION} - resolving the bound services to the
+ * providing components</li>
+ * <li>{@value #GRAPH_BUILD} - building the graph from the collected
+ * components</li>
+ * <li>{@value #CYCLE_SEARCH} - searching the cycles or the cyclic strongly
+ * connected components</li>
+ * <li>{@value #EXPORT} - exporting a graph</li>
+ * </ul>
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @NotThreadSafe
+ *
+ * @see ScrGraph#getStatistics()
+ */
+public class ScrGraphStatistics extends DTO {
+
+    public static final String COLLECTION = "collection";
+    public static final String EDGE_RESOLUTION = "edgeResolution";
+    public static final String GRAPH_BUILD = "graphBuild";
+    public static final String CYCLE_SEARCH = "cycleSearch";
+    public static final String EXPORT = "export";
+
+    /**
+     * The statistics of the measured operations
+     */
+    public List<ScrOperationStatistics> operations;
+
+    /**
+     * The number of vertices of the latest snapshot or {@code -1} if no
+     * snapshot has been built yet
+     */
+    public long vertexCount;
+
+    /**
+     * The number of edges of the latest snapshot or {@code -1} if no snapshot
+     * has been built yet
+     */
+    public long edgeCount;
+
+    /**
+     * The number of simple cycles found by the latest cycle search or
+     * {@code -1} if the cycles have not been enumerated yet
+     */
+    public long cycleCount;
+
+    /**
+     * The number of cyclic strongly connected components found by the latest
+     * cycle search or {@code -1} if no cycle search has been performed yet
+     */
+    public long stronglyConnectedComponentCount;
+
+}
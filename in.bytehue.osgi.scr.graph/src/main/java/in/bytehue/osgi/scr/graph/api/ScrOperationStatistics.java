@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for the recorded latencies of a single operation of
+ * the Service Component Runtime (SCR) graph.
+ *
+ * <p>
+ * The latencies are recorded in a histogram with logarithmic buckets and a
+ * relative precision of about 3%. Hence, the reported percentiles are the
+ * upper bounds of the buckets they fall in.
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @NotThreadSafe
+ *
+ * @see ScrGraphStatistics
+ */
+public class ScrOperationStatistics extends DTO {
+
+    /**
+     * The name of the operation
+     */
+    public String name;
+
+    /**
+     * The number of recorded invocations
+     */
+    public long count;
+
+    /**
+     * The total time in nanoseconds of all the recorded invocations
+     */
+    public long totalNanos;
+
+    /**
+     * The shortest recorded time in nanoseconds or {@code 0} if nothing has
+     * been recorded yet
+     */
+    public long minNanos;
+
+    /**
+     * The longest recorded time in nanoseconds or {@code 0} if nothing has
+     * been recorded yet
+     */
+    public long maxNanos;
+
+    /**
+     * The median time in nanoseconds
+     */
+    public long p50Nanos;
+
+    /**
+     * The 90th percentile time in nanoseconds
+     */
+    public long p90Nanos;
+
+    /**
+     * The 99th percentile time in nanoseconds
+     */
+    public long p99Nanos;
+
+    /**
+     * The 99.9th percentile time in nanoseconds
+     */
+    public long p999Nanos;
+
+}
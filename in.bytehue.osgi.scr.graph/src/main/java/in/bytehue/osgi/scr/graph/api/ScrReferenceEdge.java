@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import static java.util.Objects.requireNonNull;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.service.component.runtime.dto.ReferenceDTO;
+
+/**
+ * Edge of the Service Component Runtime (SCR) graph that represents a
+ * reference of the source component which is satisfied (or would be
+ * satisfied) by the target component.
+ *
+ * <p>
+ * The edge carries the metadata of the {@link ReferenceDTO} declared by the
+ * description of the source component such that the graph can tell whether
+ * a dependency actually prevents the activation of the component. An edge is
+ * <i>blocking</i> if its reference is mandatory and static, i.e. the source
+ * component can neither be satisfied without the target nor be rebound to
+ * another target while it is active.
+ *
+ * <p>
+ * <b>Note that</b>, the graph does not contain multiple edges between the same
+ * components. If a component references another component more than once,
+ * the edge of a blocking reference takes precedence over the others.
+ * Moreover, the edges of graphs that do not originate from a runtime, such
+ * as the graphs of stored snapshots, are plain {@link DefaultEdge} instances
+ * without any metadata.
+ *
+ * <p>
+ * Edges are compared by identity as required by the graph implementations.
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @Immutable
+ *
+ * @see ScrGraph#getBlockingCycles()
+ */
+public class ScrReferenceEdge extends DefaultEdge {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final String interfaceName;
+    private final String cardinality;
+    private final String policy;
+    private final String policyOption;
+    private final String target;
+
+    /**
+     * Creates an edge
+     *
+     * @param name the name of the reference
+     * @param interfaceName the service interface of the reference
+     * @param cardinality the cardinality of the reference
+     * @param policy the policy of the reference
+     * @param policyOption the policy option of the reference
+     * @param target the target filter of the reference or {@code null}
+     */
+    public ScrReferenceEdge( //
+            final String name, //
+            final String interfaceName, //
+            final String cardinality, //
+            final String policy, //
+            final String policyOption, //
+            final String target) {
+
+        this.name = requireNonNull(name, "'name' cannot be null");
+        this.interfaceName = interfaceName;
+        this.cardinality = cardinality;
+        this.policy = policy;
+        this.policyOption = policyOption;
+        this.target = target;
+    }
+
+    /**
+     * Returns the name of the reference
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the service interface of the reference
+     */
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    /**
+     * Returns the cardinality of the reference ({@code 0..1}, {@code 0..n},
+     * {@code 1..1} or {@code 1..n})
+     */
+    public String getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns the policy of the reference ({@code static} or {@code dynamic})
+     */
+    public String getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the policy option of the reference ({@code reluctant} or
+     * {@code greedy})
+     */
+    public String getPolicyOption() {
+        return policyOption;
+    }
+
+    /**
+     * Returns the effective target filter of the reference or {@code null} if
+     * it does not have any
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns {@code true} if at least one target is required to satisfy the
+     * reference
+     */
+    public boolean isMandatory() {
+        return cardinality != null && cardinality.startsWith("1");
+    }
+
+    /**
+     * Returns {@code true} if the reference has the static policy
+     */
+    public boolean isStatic() {
+        return !"dynamic".equals(policy);
+    }
+
+    /**
+     * Returns {@code true} if the reference is mandatory and static and hence
+     * blocks the activation of the source component as long as the target is
+     * not available
+     */
+    public boolean isBlocking() {
+        return isMandatory() && isStatic();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " " + name + " [" + cardinality + ", " + policy + "]";
+    }
+
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.api;
+
+import java.util.List;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for the startup ordering analysis of the Service
+ * Component Runtime (SCR).
+ *
+ * <p>
+ * The analysis condenses every strongly connected component of the graph into
+ * a single unit and layers the resulting acyclic graph topologically. The
+ * components of the first layer do not depend on any other component and the
+ * components of every subsequent layer only depend on components of the
+ * previous layers. Hence, all the components of a layer can be activated in
+ * parallel once the previous layers are active.
+ *
+ * @noextend This class is not intended to be extended by consumers.
+ *
+ * @NotThreadSafe
+ *
+ * @see ScrGraph#getStartupAnalysis()
+ */
+public class ScrStartupAnalysis extends DTO {
+
+    /**
+     * The layers of components in activation order
+     */
+    public List<List<ScrComponent>> layers;
+
+    /**
+     * The number of components of every layer
+     */
+    public int[] widths;
+
+    /**
+     * The longest dependency chain in activation order, i.e. the chain of
+     * components that serializes the startup
+     */
+    public List<ScrComponent> criticalPath;
+
+    /**
+     * The weight of the critical path which is the total activation time in
+     * nanoseconds if {@link #weighted} is {@code true}, otherwise the number
+     * of components on the critical path
+     */
+    public long criticalPathWeight;
+
+    /**
+     * Whether the components have been weighted by their measured activation
+     * times
+     */
+    public boolean weighted;
+
+}
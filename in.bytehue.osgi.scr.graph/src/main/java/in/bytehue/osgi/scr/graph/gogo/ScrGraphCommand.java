@@ -18,41 +18,307 @@ package in.bytehue.osgi.scr.graph.gogo;
 import static in.bytehue.osgi.scr.graph.gogo.ScrGraphCommand.PID;
 import static in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.createVertexLabel;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+import org.apache.felix.service.command.CommandSession;
 import org.apache.felix.service.command.Descriptor;
 import org.apache.felix.service.command.Parameter;
 import org.apache.felix.service.command.annotations.GogoCommand;
 import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
+import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
 
 import in.bytehue.osgi.scr.graph.api.ScrComponent;
 import in.bytehue.osgi.scr.graph.api.ScrGraph;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff.Edge;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff.StateChange;
+import in.bytehue.osgi.scr.graph.api.ScrGraphFilter;
+import in.bytehue.osgi.scr.graph.api.ScrGraphFormat;
+import in.bytehue.osgi.scr.graph.api.ScrGraphResult;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+import in.bytehue.osgi.scr.graph.api.ScrGraphStatistics;
+import in.bytehue.osgi.scr.graph.api.ScrOperationStatistics;
+import in.bytehue.osgi.scr.graph.api.ScrStartupAnalysis;
 
-@GogoCommand(scope = "scr", function = { "graph", "cycle" })
+@GogoCommand(scope = "scr", function = { "graph", "cycle", "startup", "dependencies", "dependents", "path", "stats" })
 @Component(service = ScrGraphCommand.class, configurationPid = PID)
 @Descriptor("Graph Commands for Service Component Runtime (SCR)")
 public final class ScrGraphCommand {
 
     public static final String PID = "in.bytehue.osgi.scr.graph.gogo";
 
+    /**
+     * The session attribute retaining the baseline of {@code scr:graph -diff}
+     * such that every console session compares against its own baseline
+     */
+    private static final String BASELINE = "in.bytehue.osgi.scr.graph.baseline";
+
     @Reference
     private ScrGraph scrGraph;
 
-    @Descriptor("Returns Graphviz DOT Representation of Service Component Runtime (SCR)")
-    public String graph() {
-        final Graph<ScrComponent, DefaultEdge> graph = scrGraph.getGraph();
+    @Descriptor("Exports the graph of Service Component Runtime (SCR) as Graphviz DOT, GraphML or JSON (-f) to the console or a file (-o)")
+    public String graph( //
+            final CommandSession session,
+            //
+            @Descriptor("The export format (dot, graphml or json)") //
+            @Parameter(absentValue = "dot", names = "-f") //
+            final String format,
+            //
+            @Descriptor("The file to export the graph to instead of the console") //
+            @Parameter(absentValue = "", names = "-o") //
+            final String file,
+            //
+            @Descriptor("Displays the changes since the previous invocation with this option") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-diff") //
+            final boolean showDiff,
+            //
+            @Descriptor("Displays the changes since the stored snapshot with this serial number (requires -diff)") //
+            @Parameter(absentValue = "0", names = "-from") //
+            final int fromSerialNo,
+            //
+            @Descriptor("Persists the current graph in the snapshot store") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-save") //
+            final boolean save,
+            //
+            @Descriptor("Lists the snapshots persisted in the snapshot store") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-history") //
+            final boolean showHistory,
+            //
+            @Descriptor("Includes only the components of the bundles matching this symbolic name pattern") //
+            @Parameter(absentValue = "", names = "-b") //
+            final String bundleSymbolicName,
+            //
+            @Descriptor("Includes only the components matching this name pattern") //
+            @Parameter(absentValue = "", names = "-n") //
+            final String componentName,
+            //
+            @Descriptor("Includes only the configurations of these comma separated states (e.g. active,satisfied)") //
+            @Parameter(absentValue = "", names = "-s") //
+            final String states,
+            //
+            @Descriptor("Includes only the components providing a service interface matching this pattern") //
+            @Parameter(absentValue = "", names = "-i") //
+            final String serviceInterface,
+            //
+            @Descriptor("Maximum time in milliseconds to spend on collecting the graph (0 for no limit)") //
+            @Parameter(absentValue = "0", names = "-t") //
+            final long timeout) throws IOException {
 
-        final Writer writer = new StringWriter();
-        scrGraph.exportGraph(graph, writer);
+        if (save) {
+            final ScrGraphSnapshot stored = scrGraph.storeSnapshot();
+            return "Snapshot stored (change count " + stored.getChangeCount() + ")";
+        }
+        if (showHistory) {
+            return history();
+        }
+        if (showDiff) {
+            return diff(session, fromSerialNo);
+        }
 
-        return writer.toString();
+        final ScrGraphFormat graphFormat;
+        try {
+            graphFormat = ScrGraphFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            return "Not a valid format: " + format;
+        }
+        final ScrGraphFilter filter = new ScrGraphFilter();
+
+        filter.bundleSymbolicName = bundleSymbolicName;
+        filter.name = componentName;
+        filter.serviceInterface = serviceInterface;
+        for (final String state : states.split(",")) {
+            if (state.trim().isEmpty()) {
+                continue;
+            }
+            final int value = toState(state.trim());
+            if (value == 0) {
+                return "Not a valid state: " + state;
+            }
+            filter.states |= value;
+        }
+        final boolean filtered = !bundleSymbolicName.isEmpty() || !componentName.isEmpty()
+                || !serviceInterface.isEmpty() || filter.states != 0;
+        final Graph<ScrComponent, DefaultEdge> graph;
+        boolean truncated = false;
+        if (timeout > 0) {
+            final ScrGraphResult<Graph<ScrComponent, DefaultEdge>> result = await(
+                    scrGraph.getGraphAsync(filtered ? filter : null, Duration.ofMillis(timeout)));
+            if (result == null) {
+                return "Graph collection has been interrupted";
+            }
+            graph = result.value;
+            truncated = result.truncated;
+        } else {
+            graph = filtered ? scrGraph.getGraph(filter) : scrGraph.getGraph();
+        }
+        final String truncation = truncated ? "Graph truncated after " + timeout + " ms" : null;
+
+        // stream the graph as it is exported instead of buffering it
+        if (file.isEmpty()) {
+            scrGraph.exportGraph(graph, System.out, graphFormat);
+            return truncation;
+        }
+        final Path path = Paths.get(file);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            scrGraph.exportGraph(graph, out, graphFormat);
+        }
+        final String message = "Graph exported to " + path.toAbsolutePath();
+        return truncation == null ? message : message + " (" + truncation + ")";
+    }
+
+    /**
+     * Waits for the specified operation and cancels it if the command is
+     * interrupted
+     *
+     * @return the result or {@code null} if the command has been interrupted
+     */
+    private static <T> T await(final CompletionStage<T> stage) {
+        final CompletableFuture<T> future = stage.toCompletableFuture();
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+
+    private String history() {
+        final List<ScrGraphSnapshot> snapshots = scrGraph.getStoredSnapshots();
+        if (snapshots.isEmpty()) {
+            return "No SCR snapshot stored";
+        }
+        final StringBuilder builder = new StringBuilder();
+        int serial = 0;
+        for (final ScrGraphSnapshot snapshot : snapshots) {
+            // @formatter:off
+            builder.append(++serial + "> ")
+                   .append(Instant.ofEpochMilli(snapshot.getTimestamp()))
+                   .append(" (change count ")
+                   .append(snapshot.getChangeCount())
+                   .append(')')
+                   .append(System.lineSeparator());
+            // @formatter:on
+        }
+        return builder.toString();
+    }
+
+    private String diff(final CommandSession session, final int fromSerialNo) {
+        final ScrGraphSnapshot current = scrGraph.getSnapshot();
+        final ScrGraphSnapshot previous;
+        if (fromSerialNo == 0) {
+            previous = (ScrGraphSnapshot) session.get(BASELINE);
+            session.put(BASELINE, current);
+            if (previous == null) {
+                return "Baseline recorded, execute again to display the changes";
+            }
+        } else {
+            final List<ScrGraphSnapshot> snapshots = scrGraph.getStoredSnapshots();
+            if (fromSerialNo < 0 || fromSerialNo > snapshots.size()) {
+                return "Not a valid serial number";
+            }
+            previous = snapshots.get(fromSerialNo - 1);
+        }
+        final ScrGraphDiff diff = scrGraph.diff(previous, current);
+        if (diff.isEmpty()) {
+            return "No SCR change exists";
+        }
+        final String lineSeparator = System.lineSeparator();
+        final StringBuilder builder = new StringBuilder();
+
+        diff.addedComponents.forEach(c -> builder.append("+ ").append(createVertexLabel(c)).append(lineSeparator));
+        diff.removedComponents.forEach(c -> builder.append("- ").append(createVertexLabel(c)).append(lineSeparator));
+        for (final StateChange change : diff.stateChanges) {
+            // @formatter:off
+            builder.append("~ ")
+                   .append(createVertexLabel(change.component))
+                   .append(' ')
+                   .append(toStateName(change.previousState))
+                   .append(" --> ")
+                   .append(toStateName(change.state))
+                   .append(lineSeparator);
+            // @formatter:on
+        }
+        for (final Edge edge : diff.addedEdges) {
+            // @formatter:off
+            builder.append("+ ")
+                   .append(createVertexLabel(edge.source))
+                   .append(" --> ")
+                   .append(createVertexLabel(edge.target))
+                   .append(lineSeparator);
+            // @formatter:on
+        }
+        for (final Edge edge : diff.removedEdges) {
+            // @formatter:off
+            builder.append("- ")
+                   .append(createVertexLabel(edge.source))
+                   .append(" --> ")
+                   .append(createVertexLabel(edge.target))
+                   .append(lineSeparator);
+            // @formatter:on
+        }
+        return builder.toString();
+    }
+
+    private static String toStateName(final int state) {
+        switch (state) {
+            case ComponentConfigurationDTO.UNSATISFIED_CONFIGURATION:
+                return "UNSATISFIED_CONFIGURATION";
+            case ComponentConfigurationDTO.UNSATISFIED_REFERENCE:
+                return "UNSATISFIED_REFERENCE";
+            case ComponentConfigurationDTO.SATISFIED:
+                return "SATISFIED";
+            case ComponentConfigurationDTO.ACTIVE:
+                return "ACTIVE";
+            case ComponentConfigurationDTO.FAILED_ACTIVATION:
+                return "FAILED_ACTIVATION";
+            default:
+                return String.valueOf(state);
+        }
+    }
+
+    private static int toState(final String name) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "UNSATISFIED_CONFIGURATION":
+                return ComponentConfigurationDTO.UNSATISFIED_CONFIGURATION;
+            case "UNSATISFIED_REFERENCE":
+                return ComponentConfigurationDTO.UNSATISFIED_REFERENCE;
+            case "SATISFIED":
+                return ComponentConfigurationDTO.SATISFIED;
+            case "ACTIVE":
+                return ComponentConfigurationDTO.ACTIVE;
+            case "FAILED_ACTIVATION":
+                return ComponentConfigurationDTO.FAILED_ACTIVATION;
+            default:
+                return 0;
+        }
     }
 
     @Descriptor("Returns GraphViz DOT Representation of Cyclic Dependencies of Service Component Runtime (SCR)")
@@ -67,47 +333,323 @@ public final class ScrGraphCommand {
             //
             @Descriptor("Returns the Graphviz DOT representation of the cycle with this serial number") //
             @Parameter(absentValue = "0", names = "-no") //
-            final int serialNo) {
+            final int serialNo,
+            //
+            @Descriptor("Maximum number of cycles to display (0 for all)") //
+            @Parameter(absentValue = "0", names = "-max") //
+            final int maxCycles,
+            //
+            @Descriptor("Maximum number of components in a displayed cycle (0 for all)") //
+            @Parameter(absentValue = "0", names = "-len") //
+            final int maxLength,
+            //
+            @Descriptor("Maximum time in milliseconds to spend on finding the cycles (0 for no limit)") //
+            @Parameter(absentValue = "0", names = "-t") //
+            final long timeout,
+            //
+            @Descriptor("Displays only the groups of components that are part of any cycle") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-scc") //
+            final boolean showScc,
+            //
+            @Descriptor("Displays only the cycles of mandatory static references that block the activation") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-b") //
+            final boolean showBlocking) {
 
-        final List<List<ScrComponent>> cycles = scrGraph.getCycles();
+        final Duration budget = timeout == 0 ? null : Duration.ofMillis(timeout);
+        final Function<ScrComponent, String> componentFn = //
+                c -> removeComponentName ? String.valueOf(c.configuration.id) : createVertexLabel(c);
 
-        if (cycles.isEmpty()) {
-            return "No SCR cycle exists";
+        if (showScc) {
+            final List<List<ScrComponent>> sccs = scrGraph.getStronglyConnectedComponents();
+            if (sccs.isEmpty()) {
+                return "No SCR cycle exists";
+            }
+            final StringBuilder builder = new StringBuilder();
+            int serial = 0;
+            for (final List<ScrComponent> scc : sccs) {
+                // @formatter:off
+                builder.append(++serial + "> ")
+                       .append(scc.stream()
+                                  .map(componentFn)
+                                  .collect(joining(", ")))
+                       .append(System.lineSeparator());
+                // @formatter:on
+            }
+            return builder.toString();
+        }
+
+        if (showBlocking) {
+            return blockingCycles(showPlain, serialNo, maxCycles, maxLength, componentFn);
         }
+
         if (!showPlain) {
             if (serialNo == 0) {
                 final Graph<ScrComponent, DefaultEdge> cyclesAsGraph = scrGraph.getCyclesAsGraph();
+                if (cyclesAsGraph.vertexSet().isEmpty()) {
+                    return "No SCR cycle exists";
+                }
                 final Writer writer = new StringWriter();
                 scrGraph.exportGraph(cyclesAsGraph, writer);
 
                 return writer.toString();
             } else {
-                if (serialNo > cycles.size()) {
+                if (serialNo < 0) {
                     return "Not a valid serial number";
                 }
-                final int serial = serialNo - 1;
-                final Graph<ScrComponent, DefaultEdge> cyclesAsGraph = scrGraph.getCycleAsGraph(cycles.get(serial));
+                final AtomicReference<List<ScrComponent>> cycle = new AtomicReference<>();
+                final ScrGraphResult<Integer> result = scrGraph.forEachCycle(serialNo, maxLength, budget, cycle::set);
+                if (result.value < serialNo) {
+                    return result.truncated ? truncated(result) : "Not a valid serial number";
+                }
+                final Graph<ScrComponent, DefaultEdge> cyclesAsGraph = scrGraph.getCycleAsGraph(cycle.get());
                 final Writer writer = new StringWriter();
                 scrGraph.exportGraph(cyclesAsGraph, writer);
 
                 return writer.toString();
             }
         } else {
+            final PrintStream out = System.out;
+            final AtomicInteger serial = new AtomicInteger();
+
+            // print the cycles as soon as they are found
+            final ScrGraphResult<Integer> result = scrGraph.forEachCycle(maxCycles, maxLength, budget, group -> {
+                // @formatter:off
+                out.println(serial.incrementAndGet() + "> " +
+                            group.stream()
+                                 .map(componentFn)
+                                 .collect(joining(" --> ")));
+                // @formatter:on
+                out.flush();
+            });
+            if (result.truncated) {
+                return truncated(result);
+            }
+            return result.value == 0 ? "No SCR cycle exists" : null;
+        }
+    }
+
+    private static String truncated(final ScrGraphResult<Integer> result) {
+        return "Cycle search truncated after " + result.value + (result.value == 1 ? " cycle" : " cycles");
+    }
+
+    private String blockingCycles( //
+            final boolean showPlain, //
+            final int serialNo, //
+            final int maxCycles, //
+            final int maxLength, //
+            final Function<ScrComponent, String> componentFn) {
+
+        // @formatter:off
+        final List<List<ScrComponent>> cycles = scrGraph.getBlockingCycles()
+                                                        .stream()
+                                                        .filter(c -> maxLength == 0 || c.size() <= maxLength)
+                                                        .collect(toList());
+        // @formatter:on
+        if (cycles.isEmpty()) {
+            return "No blocking SCR cycle exists";
+        }
+        if (showPlain) {
             final StringBuilder builder = new StringBuilder();
-            int serial = 0;
-            for (final List<ScrComponent> group : cycles) {
-                final Function<ScrComponent, String> componentFn = //
-                        c -> removeComponentName ? String.valueOf(c.configuration.id) : createVertexLabel(c);
+            final int size = maxCycles == 0 ? cycles.size() : Math.min(maxCycles, cycles.size());
+            for (int i = 0; i < size; i++) {
                 // @formatter:off
-                builder.append(++serial + "> ")
-                       .append(group.stream()
-                                    .map(componentFn)
-                                    .collect(joining(" --> ")))
+                builder.append(i + 1 + "> ")
+                       .append(cycles.get(i).stream()
+                                            .map(componentFn)
+                                            .collect(joining(" --> ")))
                        .append(System.lineSeparator());
                 // @formatter:on
             }
             return builder.toString();
         }
+        if (serialNo < 0 || serialNo > cycles.size()) {
+            return "Not a valid serial number";
+        }
+        final Graph<ScrComponent, DefaultEdge> cyclesAsGraph;
+        if (serialNo == 0) {
+            cyclesAsGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+            cycles.forEach(cycle -> Graphs.addGraph(cyclesAsGraph, scrGraph.getCycleAsGraph(cycle)));
+        } else {
+            cyclesAsGraph = scrGraph.getCycleAsGraph(cycles.get(serialNo - 1));
+        }
+        final Writer writer = new StringWriter();
+        scrGraph.exportGraph(cyclesAsGraph, writer);
+
+        return writer.toString();
+    }
+
+    @Descriptor("Returns the startup layers and the critical activation path of Service Component Runtime (SCR)")
+    public String startup( //
+            @Descriptor("Displays the layers without SCR component names") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-r") //
+            final boolean removeComponentName) {
+
+        final ScrStartupAnalysis analysis = scrGraph.getStartupAnalysis();
+        if (analysis.layers.isEmpty()) {
+            return "No SCR component exists";
+        }
+        final Function<ScrComponent, String> componentFn = c -> {
+            final String label = removeComponentName ? String.valueOf(c.configuration.id) : createVertexLabel(c);
+            return c.description.immediate ? label + "*" : label;
+        };
+        final String lineSeparator = System.lineSeparator();
+        final StringBuilder builder = new StringBuilder();
+
+        builder.append("Layers (components of a layer can be activated in parallel, * = immediate)") //
+                .append(lineSeparator);
+        for (int i = 0; i < analysis.layers.size(); i++) {
+            // @formatter:off
+            builder.append(i + 1)
+                   .append(" [")
+                   .append(analysis.widths[i])
+                   .append("]> ")
+                   .append(analysis.layers.get(i).stream()
+                                          .map(componentFn)
+                                          .collect(joining(", ")))
+                   .append(lineSeparator);
+            // @formatter:on
+        }
+        final String unit = analysis.weighted ? " ns" : " components";
+        // @formatter:off
+        builder.append(lineSeparator)
+               .append("Critical Path in activation order (")
+               .append(analysis.criticalPathWeight)
+               .append(unit)
+               .append(")> ")
+               .append(analysis.criticalPath.stream()
+                                            .map(componentFn)
+                                            .collect(joining(" --> ")))
+               .append(lineSeparator);
+        // @formatter:on
+        return builder.toString();
+    }
+
+    @Descriptor("Returns the SCR components the specified SCR component transitively depends on")
+    public String dependencies( //
+            @Descriptor("Maximum number of dependency hops to follow (0 for all)") //
+            @Parameter(absentValue = "0", names = "-d") //
+            final int maxDepth,
+            //
+            @Descriptor("Displays the components without SCR component names") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-r") //
+            final boolean removeComponentName,
+            //
+            @Descriptor("The configuration ID of the SCR component") //
+            final long configurationId) {
+
+        try {
+            final List<ScrComponent> dependencies = scrGraph.getDependencies(configurationId, maxDepth);
+            return printComponents(dependencies, removeComponentName, "No dependency exists");
+        } catch (final IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Descriptor("Returns the SCR components that transitively depend on the specified SCR component")
+    public String dependents( //
+            @Descriptor("Maximum number of dependency hops to follow (0 for all)") //
+            @Parameter(absentValue = "0", names = "-d") //
+            final int maxDepth,
+            //
+            @Descriptor("Displays the components without SCR component names") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-r") //
+            final boolean removeComponentName,
+            //
+            @Descriptor("The configuration ID of the SCR component") //
+            final long configurationId) {
+
+        try {
+            final List<ScrComponent> dependents = scrGraph.getDependents(configurationId, maxDepth);
+            return printComponents(dependents, removeComponentName, "No dependent exists");
+        } catch (final IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Descriptor("Returns the shortest dependency path between two SCR components")
+    public String path( //
+            @Descriptor("Displays the path without SCR component names") //
+            @Parameter(absentValue = "false", presentValue = "true", names = "-r") //
+            final boolean removeComponentName,
+            //
+            @Descriptor("The configuration ID of the depending SCR component") //
+            final long fromConfigurationId,
+            //
+            @Descriptor("The configuration ID of the SCR component that is depended on") //
+            final long toConfigurationId) {
+
+        final List<ScrComponent> path;
+        try {
+            path = scrGraph.getShortestPath(fromConfigurationId, toConfigurationId);
+        } catch (final IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (path.isEmpty()) {
+            return "No dependency path exists";
+        }
+        final Function<ScrComponent, String> componentFn = //
+                c -> removeComponentName ? String.valueOf(c.configuration.id) : createVertexLabel(c);
+
+        return path.stream().map(componentFn).collect(joining(" --> "));
+    }
+
+    @Descriptor("Returns the invocation counts and latencies of the Service Component Runtime (SCR) graph operations")
+    public String stats() {
+        final ScrGraphStatistics statistics = scrGraph.getStatistics();
+        final String lineSeparator = System.lineSeparator();
+        final StringBuilder builder = new StringBuilder();
+
+        builder.append(String.format(Locale.ROOT, "%-16s %10s %12s %12s %12s %12s %12s%n", //
+                "Operation", "Count", "Mean (ms)", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "Max (ms)"));
+        for (final ScrOperationStatistics operation : statistics.operations) {
+            final long mean = operation.count == 0 ? 0 : operation.totalNanos / operation.count;
+            builder.append(String.format(Locale.ROOT, "%-16s %10d %12.3f %12.3f %12.3f %12.3f %12.3f%n", //
+                    operation.name, //
+                    operation.count, //
+                    toMillis(mean), //
+                    toMillis(operation.p50Nanos), //
+                    toMillis(operation.p99Nanos), //
+                    toMillis(operation.p999Nanos), //
+                    toMillis(operation.maxNanos)));
+        }
+        // @formatter:off
+        builder.append(lineSeparator)
+               .append("Vertices> ").append(toCount(statistics.vertexCount)).append(lineSeparator)
+               .append("Edges> ").append(toCount(statistics.edgeCount)).append(lineSeparator)
+               .append("Cycles> ").append(toCount(statistics.cycleCount)).append(lineSeparator)
+               .append("Cyclic Groups> ").append(toCount(statistics.stronglyConnectedComponentCount))
+               .append(lineSeparator);
+        // @formatter:on
+        return builder.toString();
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    private static String toCount(final long count) {
+        return count == -1 ? "unknown" : String.valueOf(count);
+    }
+
+    private static String printComponents( //
+            final List<ScrComponent> components, //
+            final boolean removeComponentName, //
+            final String emptyMessage) {
+
+        if (components.isEmpty()) {
+            return emptyMessage;
+        }
+        final StringBuilder builder = new StringBuilder();
+        int serial = 0;
+        for (final ScrComponent component : components) {
+            // @formatter:off
+            builder.append(++serial + "> ")
+                   .append(removeComponentName ? String.valueOf(component.configuration.id)
+                                               : createVertexLabel(component))
+                   .append(System.lineSeparator());
+            // @formatter:on
+        }
+        return builder.toString();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.http;
+
+import static in.bytehue.osgi.scr.graph.http.ScrGraphServlet.PID;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.osgi.service.component.annotations.ConfigurationPolicy.REQUIRE;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletPattern;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraph;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff.Edge;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff.StateChange;
+import in.bytehue.osgi.scr.graph.api.ScrGraphFormat;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+/**
+ * Serves the SCR graph over HTTP using the OSGi HTTP Whiteboard.
+ *
+ * <p>
+ * The following resources are available below the servlet pattern:
+ * <ul>
+ * <li>{@code /} - the graph</li>
+ * <li>{@code /cycles} - the components that are part of any cycle</li>
+ * <li>{@code /diff?from=n} - the changes since the stored snapshot with the
+ * serial number {@code n} (always JSON)</li>
+ * </ul>
+ * The graphs are rendered as JSON unless the {@code format} query parameter
+ * specifies {@code dot} or {@code graphml}.
+ *
+ * <p>
+ * Every response carries a weak {@code ETag} derived from the resource, the
+ * format and the change count of the served snapshot. Hence, a poller that
+ * sends the tag in the {@code If-None-Match} header receives a {@code 304}
+ * without any body as long as the runtime has not changed. The tag is weak as
+ * the bodies are streamed and compressed if the client accepts {@code gzip},
+ * i.e. the compressed and the identity bodies share the tag.
+ *
+ * <p>
+ * The servlet is only registered if a configuration with the PID
+ * {@value #PID} exists.
+ */
+@HttpWhiteboardServletPattern("/scr/graph/*")
+@Component(service = Servlet.class, configurationPid = PID, configurationPolicy = REQUIRE)
+public final class ScrGraphServlet extends HttpServlet {
+
+    public static final String PID = "in.bytehue.osgi.scr.graph.http";
+
+    private static final long serialVersionUID = 1L;
+
+    @Reference
+    private transient ScrGraph scrGraph;
+
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final String path = request.getPathInfo() == null ? "/" : request.getPathInfo();
+        if (!"/".equals(path) && !"/cycles".equals(path) && !"/diff".equals(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        final String formatName = request.getParameter("format");
+        final String from = request.getParameter("from");
+
+        final ScrGraphFormat format;
+        try {
+            format = formatName == null ? ScrGraphFormat.JSON
+                    : ScrGraphFormat.valueOf(formatName.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Not a valid format: " + formatName);
+            return;
+        }
+        final ScrGraphSnapshot snapshot = scrGraph.getSnapshot();
+        ScrGraphSnapshot baseline = null;
+        if ("/diff".equals(path)) {
+            baseline = getBaseline(from);
+            if (baseline == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, "No stored snapshot with serial number " + from);
+                return;
+            }
+        }
+        final String etag = createETag(path, snapshot, format, baseline);
+        if (etag != null) {
+            if (matches(request.getHeader("If-None-Match"), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setHeader("ETag", etag);
+                return;
+            }
+            response.setHeader("ETag", etag);
+        }
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Vary", "Accept-Encoding");
+
+        switch (path) {
+            case "/":
+                writeGraph(request, response, snapshot.getGraph(), format);
+                break;
+            case "/cycles":
+                writeGraph(request, response, scrGraph.getCyclesAsGraph(), format);
+                break;
+            case "/diff":
+                writeDiff(request, response, baseline, snapshot);
+                break;
+            default:
+                // the path has already been validated
+                break;
+        }
+    }
+
+    private void writeGraph( //
+            final HttpServletRequest request, //
+            final HttpServletResponse response, //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final ScrGraphFormat format) throws IOException {
+
+        response.setContentType(getContentType(format));
+        try (OutputStream out = openStream(request, response)) {
+            scrGraph.exportGraph(graph, out, format);
+        }
+    }
+
+    /**
+     * Returns the stored snapshot with the specified serial number (the latest
+     * if not specified) or {@code null} if no such snapshot exists
+     */
+    private ScrGraphSnapshot getBaseline(final String from) {
+        final List<ScrGraphSnapshot> snapshots = scrGraph.getStoredSnapshots();
+        final int serialNo;
+        try {
+            serialNo = from == null ? snapshots.size() : Integer.parseInt(from);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+        return serialNo < 1 || serialNo > snapshots.size() ? null : snapshots.get(serialNo - 1);
+    }
+
+    private void writeDiff( //
+            final HttpServletRequest request, //
+            final HttpServletResponse response, //
+            final ScrGraphSnapshot baseline, //
+            final ScrGraphSnapshot snapshot) throws IOException {
+
+        final ScrGraphDiff diff = scrGraph.diff(baseline, snapshot);
+
+        response.setContentType(getContentType(ScrGraphFormat.JSON));
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(openStream(request, response), UTF_8))) {
+            writer.write("{\"fromChangeCount\":");
+            writer.write(Long.toString(diff.fromChangeCount));
+            writer.write(",\"toChangeCount\":");
+            writer.write(Long.toString(diff.toChangeCount));
+            writer.write(",\"addedComponents\":[");
+            writeComponents(diff.addedComponents, writer);
+            writer.write("],\"removedComponents\":[");
+            writeComponents(diff.removedComponents, writer);
+            writer.write("],\"stateChanges\":[");
+            for (int i = 0; i < diff.stateChanges.size(); i++) {
+                final StateChange change = diff.stateChanges.get(i);
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write("{\"component\":");
+                writeComponent(change.component, writer);
+                writer.write(",\"previousState\":");
+                writer.write(Integer.toString(change.previousState));
+                writer.write(",\"state\":");
+                writer.write(Integer.toString(change.state));
+                writer.write('}');
+            }
+            writer.write("],\"addedEdges\":[");
+            writeEdges(diff.addedEdges, writer);
+            writer.write("],\"removedEdges\":[");
+            writeEdges(diff.removedEdges, writer);
+            writer.write("]}");
+        }
+    }
+
+    private static void writeComponents(final List<ScrComponent> components, final Writer writer) throws IOException {
+        for (int i = 0; i < components.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeComponent(components.get(i), writer);
+        }
+    }
+
+    private static void writeEdges(final List<Edge> edges, final Writer writer) throws IOException {
+        for (int i = 0; i < edges.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write("{\"source\":");
+            writeComponent(edges.get(i).source, writer);
+            writer.write(",\"target\":");
+            writeComponent(edges.get(i).target, writer);
+            writer.write('}');
+        }
+    }
+
+    private static void writeComponent(final ScrComponent component, final Writer writer) throws IOException {
+        writer.write("{\"name\":\"");
+        writeEscaped(component.description.name, writer);
+        writer.write("\",\"configurationId\":");
+        writer.write(Long.toString(component.configuration.id));
+        writer.write('}');
+    }
+
+    private static void writeEscaped(final String value, final Writer writer) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+
+    /**
+     * Opens the response body, compressing it if the client accepts gzip
+     */
+    private static OutputStream openStream( //
+            final HttpServletRequest request, //
+            final HttpServletResponse response) throws IOException {
+
+        final String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            // closing the stream finishes the gzip trailer
+            return new GZIPOutputStream(response.getOutputStream(), 8192, true);
+        }
+        return response.getOutputStream();
+    }
+
+    /**
+     * Creates the weak entity tag of a resource or returns {@code null} if the
+     * runtime does not provide a change count
+     */
+    private static String createETag( //
+            final String path, //
+            final ScrGraphSnapshot snapshot, //
+            final ScrGraphFormat format, //
+            final ScrGraphSnapshot baseline) {
+
+        final long changeCount = snapshot.getChangeCount();
+        if (changeCount == -1) {
+            return null;
+        }
+        if (baseline != null) {
+            // the serial numbers of the stored snapshots shift on eviction
+            return "W/\"" + changeCount + "-diff-" + baseline.getTimestamp() + "-" + baseline.getChangeCount() + "\"";
+        }
+        final String resource = "/".equals(path) ? "graph" : path.substring(1);
+        return "W/\"" + changeCount + "-" + resource + "-" + format.name().toLowerCase(Locale.ROOT) + "\"";
+    }
+
+    private static boolean matches(final String ifNoneMatch, final String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        final String opaqueTag = etag.substring(2);
+        for (final String tag : ifNoneMatch.split(",")) {
+            final String trimmed = tag.trim();
+            // weak comparison as required for If-None-Match
+            if ("*".equals(trimmed) || etag.equals(trimmed) || opaqueTag.equals(trimmed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getContentType(final ScrGraphFormat format) {
+        switch (format) {
+            case DOT:
+                return "text/vnd.graphviz; charset=UTF-8";
+            case GRAPHML:
+                return "application/graphml+xml; charset=UTF-8";
+            case JSON:
+            default:
+                return "application/json; charset=UTF-8";
+        }
+    }
+
+}
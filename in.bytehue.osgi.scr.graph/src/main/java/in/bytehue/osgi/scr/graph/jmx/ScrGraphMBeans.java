@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.jmx;
+
+import static in.bytehue.osgi.scr.graph.jmx.ScrGraphMBeans.PID;
+import static org.osgi.framework.Constants.FRAMEWORK_UUID;
+import static org.osgi.service.component.annotations.ConfigurationPolicy.REQUIRE;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+import in.bytehue.osgi.scr.graph.api.ScrGraph;
+import in.bytehue.osgi.scr.graph.api.ScrGraphStatistics;
+import in.bytehue.osgi.scr.graph.api.ScrOperationStatistics;
+
+/**
+ * Registers the statistics of the {@link ScrGraph} as MXBeans in the platform
+ * MBean server.
+ *
+ * <p>
+ * The sizes of the graph are available as
+ * {@code in.bytehue.osgi.scr.graph:type=Graph,framework=<uuid>} and the
+ * latencies of every operation as
+ * {@code in.bytehue.osgi.scr.graph:type=Operation,framework=<uuid>,name=<name>}.
+ * The names are qualified by the UUID of the framework as the platform MBean
+ * server is shared by all the frameworks running in the same JVM. The
+ * attributes are computed from the statistics whenever they are read.
+ *
+ * <p>
+ * The MXBeans are only registered if a configuration with the PID
+ * {@value #PID} exists.
+ */
+@Component(configurationPid = PID, configurationPolicy = REQUIRE)
+public final class ScrGraphMBeans {
+
+    public static final String PID = "in.bytehue.osgi.scr.graph.jmx";
+
+    @interface Config {
+        /**
+         * The domain of the names of the MXBeans
+         */
+        String domain() default "in.bytehue.osgi.scr.graph";
+    }
+
+    private final ScrGraph scrGraph;
+    private final MBeanServer server;
+    private final List<ObjectName> names = new ArrayList<>();
+
+    @Activate
+    public ScrGraphMBeans( //
+            final BundleContext bundleContext, //
+            final Config config, //
+            @Reference final ScrGraph scrGraph) throws JMException {
+        this.scrGraph = scrGraph;
+
+        final String prefix = config.domain() + ":type=";
+        final String framework = ",framework=" + ObjectName.quote(bundleContext.getProperty(FRAMEWORK_UUID));
+
+        server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(new Graph(), new ObjectName(prefix + "Graph" + framework));
+            for (final ScrOperationStatistics operation : scrGraph.getStatistics().operations) {
+                register(new Operation(operation.name), new ObjectName(
+                        prefix + "Operation" + framework + ",name=" + ObjectName.quote(operation.name)));
+            }
+        } catch (final JMException e) {
+            deactivate();
+            throw e;
+        }
+    }
+
+    @Deactivate
+    void deactivate() {
+        for (final ObjectName name : names) {
+            try {
+                server.unregisterMBean(name);
+            } catch (final JMException e) {
+                // already unregistered by a third party
+            }
+        }
+        names.clear();
+    }
+
+    private void register(final Object mbean, final ObjectName name) throws JMException {
+        server.registerMBean(mbean, name);
+        names.add(name);
+    }
+
+    private final class Graph implements ScrGraphMXBean {
+
+        @Override
+        public long getVertexCount() {
+            return scrGraph.getStatistics().vertexCount;
+        }
+
+        @Override
+        public long getEdgeCount() {
+            return scrGraph.getStatistics().edgeCount;
+        }
+
+        @Override
+        public long getCycleCount() {
+            return scrGraph.getStatistics().cycleCount;
+        }
+
+        @Override
+        public long getStronglyConnectedComponentCount() {
+            return scrGraph.getStatistics().stronglyConnectedComponentCount;
+        }
+    }
+
+    private final class Operation implements ScrOperationMXBean {
+
+        private final String name;
+
+        Operation(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public long getCount() {
+            return get(s -> s.count);
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return get(s -> s.totalNanos);
+        }
+
+        @Override
+        public long getMinNanos() {
+            return get(s -> s.minNanos);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return get(s -> s.maxNanos);
+        }
+
+        @Override
+        public long getMeanNanos() {
+            return get(s -> s.count == 0 ? 0 : s.totalNanos / s.count);
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return get(s -> s.p50Nanos);
+        }
+
+        @Override
+        public long getP90Nanos() {
+            return get(s -> s.p90Nanos);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return get(s -> s.p99Nanos);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return get(s -> s.p999Nanos);
+        }
+
+        private long get(final ToLongFunction<ScrOperationStatistics> attribute) {
+            final ScrGraphStatistics statistics = scrGraph.getStatistics();
+            for (final ScrOperationStatistics operation : statistics.operations) {
+                if (operation.name.equals(name)) {
+                    return attribute.applyAsLong(operation);
+                }
+            }
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.jmx;
+
+/**
+ * Management interface of the latencies of a single operation of the Service
+ * Component Runtime (SCR) graph
+ */
+public interface ScrOperationMXBean {
+
+    long getCount();
+
+    long getTotalNanos();
+
+    long getMinNanos();
+
+    long getMaxNanos();
+
+    long getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+}
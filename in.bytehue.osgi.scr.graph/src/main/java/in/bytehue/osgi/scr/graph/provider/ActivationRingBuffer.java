@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer of activation samples with a fixed capacity.
+ *
+ * <p>
+ * Writers claim a slot by incrementing a shared cursor and overwrite the
+ * oldest sample once the buffer is full. Hence, the memory footprint is
+ * bounded by the capacity irrespective of the number of samples recorded.
+ */
+public final class ActivationRingBuffer {
+
+    /**
+     * Immutable activation sample of a component configuration
+     */
+    public static final class Sample {
+
+        public final String name;
+        public final long configurationId;
+        public final long activationNanos;
+        public final long firstUseNanos;
+
+        public Sample(final String name, final long configurationId, final long activationNanos,
+                final long firstUseNanos) {
+            this.name = requireNonNull(name, "'name' cannot be null");
+            this.configurationId = configurationId;
+            this.activationNanos = activationNanos;
+            this.firstUseNanos = firstUseNanos;
+        }
+    }
+
+    private final AtomicReferenceArray<Sample> samples;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public ActivationRingBuffer(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("'capacity' must be positive");
+        }
+        samples = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(final Sample sample) {
+        requireNonNull(sample, "'sample' cannot be null");
+        final long slot = cursor.getAndIncrement();
+        samples.set((int) (slot % samples.length()), sample);
+    }
+
+    /**
+     * Returns the latest sample of every configuration that is still
+     * contained in the buffer
+     *
+     * @return the samples keyed by the configuration identifiers
+     */
+    public Map<Long, Sample> latest() {
+        final Map<Long, Sample> latest = new LinkedHashMap<>();
+        final long end = cursor.get();
+        final long start = Math.max(0, end - samples.length());
+        // oldest first such that later samples replace earlier ones
+        for (long slot = start; slot < end; slot++) {
+            final Sample sample = samples.get((int) (slot % samples.length()));
+            if (sample != null) {
+                latest.put(sample.configurationId, sample);
+            }
+        }
+        return latest;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.provider.ScrComponentIndex.COMPONENT_ID;
+import static in.bytehue.osgi.scr.graph.provider.ScrComponentIndex.COMPONENT_NAME;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.osgi.framework.Constants.OBJECTCLASS;
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.ACTIVE;
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.SATISFIED;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+
+import in.bytehue.osgi.scr.graph.provider.ActivationRingBuffer.Sample;
+
+/**
+ * Measures the activation latencies of the component configurations.
+ *
+ * <p>
+ * The registration of a DS service is taken as the precise moment a
+ * configuration became satisfied. In addition, the DTOs are polled shortly
+ * after every service event of a DS component or the SCR registration
+ * (including changes to its {@code service.changecount}) to observe the
+ * configurations turning satisfied, active and their services being used for
+ * the first time. The precision of the latter is therefore limited by the
+ * poll interval.
+ *
+ * <p>
+ * A configuration which is still not used after {@value #MAX_POLLS} polls,
+ * e.g. a delayed component that is never requested or a service without any
+ * using bundle, is recorded as never used and no longer observed. Polling
+ * then stops until the next service event.
+ *
+ * <p>
+ * Configurations that are already satisfied or active when the tracker is
+ * opened are not measured since the moment they became satisfied is unknown.
+ * The measured samples are kept in an {@link ActivationRingBuffer}.
+ */
+public final class ActivationTracker implements ServiceListener {
+
+    private static final int MAX_POLLS = 100;
+
+    private static final String FILTER = "(|(" + OBJECTCLASS + "=" + ServiceComponentRuntime.class.getName() + ")("
+            + COMPONENT_NAME + "=*))";
+
+    /**
+     * Observed progress of a configuration that has not been used yet
+     */
+    private static final class Pending {
+
+        final String name;
+        final long satisfiedAt;
+        long activeAt = -1;
+        int polls;
+
+        Pending(final String name, final long satisfiedAt) {
+            this.name = name;
+            this.satisfiedAt = satisfiedAt;
+        }
+    }
+
+    private final BundleContext bundleContext;
+    private final ServiceComponentRuntime scr;
+    private final long pollInterval;
+    private final ActivationRingBuffer buffer;
+    private final Map<Long, Long> registrations = new ConcurrentHashMap<>();
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Set<Long> known = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pollScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    public ActivationTracker( //
+            final BundleContext bundleContext, //
+            final ServiceComponentRuntime scr, //
+            final int capacity, //
+            final long pollInterval) {
+
+        this.bundleContext = requireNonNull(bundleContext, "'bundleContext' cannot be null");
+        this.scr = requireNonNull(scr, "'scr' cannot be null");
+        this.pollInterval = pollInterval;
+
+        buffer = new ActivationRingBuffer(capacity);
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            final Thread thread = new Thread(r, "scr-graph-activation-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        executor = scheduler;
+    }
+
+    public void open() {
+        // the configurations that have been satisfied before tracking cannot be measured
+        for (final ComponentDescriptionDTO description : scr.getComponentDescriptionDTOs()) {
+            for (final ComponentConfigurationDTO configuration : scr.getComponentConfigurationDTOs(description)) {
+                if (configuration.state == SATISFIED || configuration.state == ACTIVE) {
+                    known.add(configuration.id);
+                }
+            }
+        }
+        try {
+            bundleContext.addServiceListener(this, FILTER);
+        } catch (final InvalidSyntaxException e) {
+            throw new IllegalStateException(e); // the filter is a constant
+        }
+    }
+
+    public void close() {
+        bundleContext.removeServiceListener(this);
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void serviceChanged(final ServiceEvent event) {
+        if (event.getType() == ServiceEvent.REGISTERED) {
+            final Object id = event.getServiceReference().getProperty(COMPONENT_ID);
+            if (id instanceof Number) {
+                registrations.putIfAbsent(((Number) id).longValue(), System.nanoTime());
+            }
+        }
+        schedulePoll();
+    }
+
+    /**
+     * Returns the latest sample of every measured configuration
+     *
+     * @return the samples keyed by the configuration identifiers
+     */
+    public Map<Long, Sample> getSamples() {
+        return buffer.latest();
+    }
+
+    private void schedulePoll() {
+        if (pollScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::poll, pollInterval, MILLISECONDS);
+        }
+    }
+
+    private void poll() {
+        pollScheduled.set(false);
+
+        final long now = System.nanoTime();
+        final Set<Long> present = new HashSet<>();
+
+        for (final ComponentDescriptionDTO description : scr.getComponentDescriptionDTOs()) {
+            for (final ComponentConfigurationDTO configuration : scr.getComponentConfigurationDTOs(description)) {
+                present.add(configuration.id);
+                observe(description.name, configuration, now);
+            }
+        }
+        // forget the configurations that have been disposed so they can be measured again
+        pending.keySet().retainAll(present);
+        known.retainAll(present);
+        registrations.keySet().retainAll(present);
+
+        if (!pending.isEmpty()) {
+            // keep observing until the pending configurations are used or expire
+            schedulePoll();
+        }
+    }
+
+    private void observe(final String name, final ComponentConfigurationDTO configuration, final long now) {
+        final long id = configuration.id;
+        if (known.contains(id)) {
+            return;
+        }
+        if (configuration.state != SATISFIED && configuration.state != ACTIVE) {
+            pending.remove(id);
+            return;
+        }
+        final Long registeredAt = registrations.get(id);
+        final Pending progress = pending.computeIfAbsent(id,
+                k -> new Pending(name, registeredAt == null ? now : Math.min(registeredAt, now)));
+
+        boolean changed = false;
+        if (configuration.state == ACTIVE && progress.activeAt == -1) {
+            progress.activeAt = now;
+            changed = true;
+        }
+        final boolean used = configuration.service != null && configuration.service.usingBundles != null
+                && configuration.service.usingBundles.length > 0;
+        final boolean serviceless = configuration.service == null && progress.activeAt != -1;
+
+        final boolean expired = ++progress.polls >= MAX_POLLS;
+
+        if (used || serviceless || expired) {
+            final long activation = progress.activeAt == -1 ? -1 : progress.activeAt - progress.satisfiedAt;
+            // an expired configuration is recorded as never used
+            buffer.add(new Sample(name, id, activation, used ? now - progress.satisfiedAt : -1));
+            pending.remove(id);
+            known.add(id);
+        } else if (changed) {
+            buffer.add(new Sample(name, id, progress.activeAt - progress.satisfiedAt, -1));
+        }
+    }
+
+}
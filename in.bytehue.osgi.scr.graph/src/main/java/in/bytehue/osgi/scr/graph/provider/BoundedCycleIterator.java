@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+
+/**
+ * Lazily enumerates the simple cycles of a graph one by one.
+ *
+ * <p>
+ * The graph is first split into its strongly connected components as no
+ * simple cycle can ever cross the boundary of one. Within every cyclic
+ * component, each cycle is found exactly once by a depth-first search that
+ * starts from the cycle's smallest vertex and never visits smaller vertices.
+ * The search keeps its state on explicit stacks so that it can be suspended
+ * after every cycle found, which allows the consumer to stop at any time.
+ *
+ * <p>
+ * The enumeration ends once the maximum number of cycles is reached, the
+ * time budget is exhausted or the stop condition holds, whichever comes first.
+ * Cycles longer than the maximum length are skipped and their paths are not
+ * explored further.
+ */
+public final class BoundedCycleIterator implements Iterator<List<ScrComponent>> {
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 10;
+
+    private final Iterator<Set<ScrComponent>> sccs;
+    private final Graph<ScrComponent, DefaultEdge> graph;
+    private final int maxCycles;
+    private final int maxLength;
+    private final boolean budgeted;
+    private final long deadline;
+    private final BooleanSupplier stopCondition;
+
+    private ScrComponent[] vertices;
+    private int[][] successors;
+    private int start;
+    private int depth;
+    private int[] path;
+    private int[] position;
+    private boolean[] onPath;
+
+    private int found;
+    private int steps;
+    private boolean truncated;
+    private List<ScrComponent> next;
+
+    /**
+     * Creates a new iterator
+     *
+     * @param graph the graph to inspect
+     * @param maxCycles the maximum number of cycles or {@code 0} for no limit
+     * @param maxLength the maximum number of components of a cycle or
+     *            {@code 0} for no limit
+     * @param budget the maximum duration of the enumeration or {@code null} for
+     *            no limit
+     */
+    public BoundedCycleIterator( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final int maxCycles, //
+            final int maxLength, //
+            final Duration budget) {
+
+        this(graph, maxCycles, maxLength, budget, () -> false);
+    }
+
+    /**
+     * Creates a new iterator that additionally stops as soon as the specified
+     * condition holds. The condition is checked as often as the deadline.
+     */
+    public BoundedCycleIterator( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final int maxCycles, //
+            final int maxLength, //
+            final Duration budget, //
+            final BooleanSupplier stopCondition) {
+
+        requireNonNull(graph, "'graph' cannot be null");
+        requireNonNull(stopCondition, "'stopCondition' cannot be null");
+        if (maxCycles < 0 || maxLength < 0) {
+            throw new IllegalArgumentException("'maxCycles' and 'maxLength' cannot be negative");
+        }
+        this.graph = graph;
+        this.maxCycles = maxCycles;
+        this.maxLength = maxLength;
+        budgeted = budget != null;
+        deadline = budgeted ? System.nanoTime() + budget.toNanos() : 0;
+        this.stopCondition = stopCondition;
+        sccs = new KosarajuStrongConnectivityInspector<>(graph).stronglyConnectedSets().iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && (maxCycles == 0 || found < maxCycles)) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public List<ScrComponent> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final List<ScrComponent> cycle = next;
+        next = null;
+        found++;
+        return cycle;
+    }
+
+    /**
+     * Returns whether the enumeration has been ended by the time budget or the
+     * stop condition before all the cycles have been found
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private List<ScrComponent> advance() {
+        while (true) {
+            if (steps++ % DEADLINE_CHECK_INTERVAL == 0 && isStopped()) {
+                truncated = true;
+                return null;
+            }
+            if (vertices == null || start >= vertices.length) {
+                if (!sccs.hasNext()) {
+                    return null;
+                }
+                load(sccs.next());
+                continue;
+            }
+            if (depth < 0) {
+                // all cycles through the current start vertex have been found
+                if (++start < vertices.length) {
+                    push(start);
+                }
+                continue;
+            }
+            final int top = path[depth];
+            if (position[depth] == successors[top].length) {
+                onPath[top] = false;
+                depth--;
+                continue;
+            }
+            final int successor = successors[top][position[depth]++];
+            if (successor == start) {
+                if (maxLength == 0 || depth < maxLength) {
+                    return toCycle();
+                }
+            } else if (successor > start && !onPath[successor] && (maxLength == 0 || depth + 1 < maxLength)) {
+                push(successor);
+            }
+        }
+    }
+
+    private boolean isStopped() {
+        return (budgeted && System.nanoTime() - deadline > 0) || stopCondition.getAsBoolean();
+    }
+
+    private void load(final Set<ScrComponent> scc) {
+        final ScrComponent[] ordered = scc.toArray(new ScrComponent[0]);
+        Arrays.sort(ordered, comparingLong(c -> c.configuration.id));
+
+        final Map<ScrComponent, Integer> indices = new HashMap<>();
+        for (int i = 0; i < ordered.length; i++) {
+            indices.put(ordered[i], i);
+        }
+        final int[][] adjacency = new int[ordered.length][];
+        for (int i = 0; i < ordered.length; i++) {
+            final List<Integer> targets = new ArrayList<>();
+            for (final DefaultEdge edge : graph.outgoingEdgesOf(ordered[i])) {
+                final Integer target = indices.get(graph.getEdgeTarget(edge));
+                if (target != null) {
+                    targets.add(target);
+                }
+            }
+            adjacency[i] = targets.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+        vertices = ordered;
+        successors = adjacency;
+        path = new int[ordered.length];
+        position = new int[ordered.length];
+        onPath = new boolean[ordered.length];
+        start = 0;
+        depth = -1;
+        push(0);
+    }
+
+    private void push(final int vertex) {
+        depth++;
+        path[depth] = vertex;
+        position[depth] = 0;
+        onPath[vertex] = true;
+    }
+
+    private List<ScrComponent> toCycle() {
+        final List<ScrComponent> cycle = new ArrayList<>(depth + 1);
+        for (int i = 0; i <= depth; i++) {
+            cycle.add(vertices[path[i]]);
+        }
+        return cycle;
+    }
+
+}
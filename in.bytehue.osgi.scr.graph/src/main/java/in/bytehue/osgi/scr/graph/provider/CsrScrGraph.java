@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.CompactScrGraph;
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+/**
+ * {@link CompactScrGraph} that stores its adjacency in the compressed sparse
+ * row (CSR) format.
+ *
+ * <p>
+ * The vertices are ordered by their configuration identifiers so that a vertex
+ * can be looked up using a binary search. The successors of vertex {@code v}
+ * are stored in {@code targets[offsets[v]]} to
+ * {@code targets[offsets[v + 1] - 1]}. Component names are shared among all
+ * the configurations of a component.
+ */
+public final class CsrScrGraph implements CompactScrGraph {
+
+    /**
+     * Loads the full DTOs of a component configuration from the runtime
+     */
+    @FunctionalInterface
+    public interface ComponentLoader {
+        ScrComponent load(long bundleId, String name, long configurationId);
+    }
+
+    private final long changeCount;
+    private final String[] names;
+    private final long[] ids;
+    private final int[] states;
+    private final long[] bundleIds;
+    private final int[] offsets;
+    private final int[] targets;
+    private final ComponentLoader loader;
+
+    private CsrScrGraph(final long changeCount, final int vertices, final int edges, final ComponentLoader loader) {
+        this.changeCount = changeCount;
+        this.loader = loader;
+
+        names = new String[vertices];
+        ids = new long[vertices];
+        states = new int[vertices];
+        bundleIds = new long[vertices];
+        offsets = new int[vertices + 1];
+        targets = new int[edges];
+    }
+
+    public static CsrScrGraph of(final ScrGraphSnapshot snapshot, final ComponentLoader loader) {
+        requireNonNull(snapshot, "'snapshot' cannot be null");
+        requireNonNull(loader, "'loader' cannot be null");
+
+        final Graph<ScrComponent, DefaultEdge> graph = snapshot.getGraph();
+        final ScrComponent[] vertices = graph.vertexSet().toArray(new ScrComponent[0]);
+        Arrays.sort(vertices, comparingLong(c -> c.configuration.id));
+
+        final CsrScrGraph compact = new CsrScrGraph( //
+                snapshot.getChangeCount(), //
+                vertices.length, //
+                graph.edgeSet().size(), //
+                loader);
+
+        final Map<ScrComponent, Integer> indices = new HashMap<>();
+        final Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < vertices.length; i++) {
+            final ScrComponent vertex = vertices[i];
+            indices.put(vertex, i);
+            compact.names[i] = names.computeIfAbsent(vertex.description.name, n -> n);
+            compact.ids[i] = vertex.configuration.id;
+            compact.states[i] = vertex.configuration.state;
+            compact.bundleIds[i] = vertex.description.bundle.id;
+        }
+        int edge = 0;
+        for (int i = 0; i < vertices.length; i++) {
+            compact.offsets[i] = edge;
+            for (final DefaultEdge outgoing : graph.outgoingEdgesOf(vertices[i])) {
+                compact.targets[edge++] = indices.get(graph.getEdgeTarget(outgoing));
+            }
+            Arrays.sort(compact.targets, compact.offsets[i], edge);
+        }
+        compact.offsets[vertices.length] = edge;
+        return compact;
+    }
+
+    @Override
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return ids.length;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public int indexOf(final long configurationId) {
+        final int index = Arrays.binarySearch(ids, configurationId);
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public String getName(final int vertex) {
+        return names[vertex];
+    }
+
+    @Override
+    public long getConfigurationId(final int vertex) {
+        return ids[vertex];
+    }
+
+    @Override
+    public int getState(final int vertex) {
+        return states[vertex];
+    }
+
+    @Override
+    public int getOutDegree(final int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    @Override
+    public int getSuccessor(final int vertex, final int index) {
+        if (index < 0 || index >= getOutDegree(vertex)) {
+            throw new IndexOutOfBoundsException("Vertex " + vertex + " has no successor " + index);
+        }
+        return targets[offsets[vertex] + index];
+    }
+
+    @Override
+    public ScrComponent getComponent(final int vertex) {
+        return loader.load(bundleIds[vertex], names[vertex], ids[vertex]);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactScrGraph [changeCount=" + changeCount + ", vertices=" + getVertexCount() + ", edges="
+                + getEdgeCount() + "]";
+    }
+
+}
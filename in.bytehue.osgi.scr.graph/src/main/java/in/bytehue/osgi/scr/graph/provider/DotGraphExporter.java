@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.api.ScrComponentType.SERVICE;
+import static in.bytehue.osgi.scr.graph.api.ScrComponentType.UNSATISFIED_REFERENCE;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrReferenceEdge;
+
+public final class DotGraphExporter extends ScrGraphExporter {
+
+    @Override
+    protected void writeHeader(final Graph<ScrComponent, DefaultEdge> graph, final Writer writer) throws IOException {
+        if (!graph.getType().isAllowingMultipleEdges()) {
+            writer.write("strict ");
+        }
+        writer.write("digraph G {");
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    protected void writeVertex(final int id, final ScrComponent vertex, final boolean first, final Writer writer)
+            throws IOException {
+        writer.write("  ");
+        writer.write(Integer.toString(id));
+        writer.write(" [ label=\"");
+        writeLabel(vertex, writer);
+        final long activationTime = getActivationTime(vertex);
+        if (activationTime >= 0) {
+            writer.write("\\n");
+            writer.write(String.format(Locale.ROOT, "%.3f ms", activationTime / 1_000_000.0));
+            writer.write("\" style=filled fillcolor=\"");
+            writer.write(toHeatColor(getActivationHeat(vertex)));
+        }
+        writer.write('"');
+        if (vertex.type == SERVICE) {
+            writer.write(" shape=box");
+        } else if (vertex.type == UNSATISFIED_REFERENCE) {
+            writer.write(" shape=octagon color=red");
+        }
+        writer.write(" ];");
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    protected void writeEdge( //
+            final int source, //
+            final int target, //
+            final DefaultEdge edge, //
+            final boolean first, //
+            final Writer writer) throws IOException {
+
+        writer.write("  ");
+        writer.write(Integer.toString(source));
+        writer.write(" -> ");
+        writer.write(Integer.toString(target));
+        if (edge instanceof ScrReferenceEdge) {
+            final ScrReferenceEdge reference = (ScrReferenceEdge) edge;
+            writer.write(" [ label=\"");
+            writeEscaped(reference.getName(), writer);
+            writer.write('"');
+            // the optional or dynamic references do not block the activation
+            if (!reference.isBlocking()) {
+                writer.write(" style=dashed");
+            }
+            writer.write(" ]");
+        }
+        writer.write(';');
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    protected void writeFooter(final Writer writer) throws IOException {
+        writer.write('}');
+        writer.write(NEW_LINE);
+    }
+
+    /**
+     * Interpolates from green (fastest) over yellow to red (slowest)
+     */
+    private static String toHeatColor(final double heat) {
+        final int red = (int) Math.round(255 * Math.min(1, 2 * heat));
+        final int green = (int) Math.round(255 * Math.min(1, 2 * (1 - heat)));
+        return String.format(Locale.ROOT, "#%02x%02x00", red, green);
+    }
+
+    @Override
+    protected void writeEscaped(final String value, final Writer writer) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('\\');
+            }
+            writer.write(c);
+        }
+    }
+
+}
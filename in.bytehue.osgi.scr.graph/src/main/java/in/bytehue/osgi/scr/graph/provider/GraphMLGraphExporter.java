@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.api.ScrComponentType.COMPONENT;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrReferenceEdge;
+
+public final class GraphMLGraphExporter extends ScrGraphExporter {
+
+    @Override
+    protected void writeHeader(final Graph<ScrComponent, DefaultEdge> graph, final Writer writer) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        writer.write(NEW_LINE);
+        writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\" "
+                + "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+                + "xsi:schemaLocation=\"http://graphml.graphdrawing.org/xmlns "
+                + "http://graphml.graphdrawing.org/xmlns/1.0/graphml.xsd\">");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"name\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"id\" for=\"node\" attr.name=\"id\" attr.type=\"long\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"state\" for=\"node\" attr.name=\"state\" attr.type=\"int\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"type\" for=\"node\" attr.name=\"type\" attr.type=\"string\">");
+        writer.write("<default>COMPONENT</default></key>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"reference\" for=\"edge\" attr.name=\"reference\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"interface\" for=\"edge\" attr.name=\"interface\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"cardinality\" for=\"edge\" attr.name=\"cardinality\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"policy\" for=\"edge\" attr.name=\"policy\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"policyOption\" for=\"edge\" attr.name=\"policyOption\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"target\" for=\"edge\" attr.name=\"target\" attr.type=\"string\"/>");
+        writer.write(NEW_LINE);
+        writer.write("  <key id=\"blocking\" for=\"edge\" attr.name=\"blocking\" attr.type=\"boolean\"/>");
+        writer.write(NEW_LINE);
+        if (hasActivationTimes()) {
+            writer.write("  <key id=\"activation\" for=\"node\" attr.name=\"activation\" attr.type=\"long\"/>");
+            writer.write(NEW_LINE);
+        }
+        writer.write("  <graph id=\"G\" edgedefault=\"directed\">");
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    protected void writeVertex(final int id, final ScrComponent vertex, final boolean first, final Writer writer)
+            throws IOException {
+        writer.write("    <node id=\"");
+        writer.write(Integer.toString(id));
+        writer.write("\"><data key=\"label\">");
+        writeLabel(vertex, writer);
+        writer.write("</data><data key=\"name\">");
+        writeEscaped(vertex.description.name, writer);
+        writer.write("</data><data key=\"id\">");
+        writer.write(Long.toString(vertex.configuration.id));
+        writer.write("</data><data key=\"state\">");
+        writer.write(Integer.toString(vertex.configuration.state));
+        if (vertex.type != null && vertex.type != COMPONENT) {
+            writer.write("</data><data key=\"type\">");
+            writer.write(vertex.type.name());
+        }
+        final long activationTime = getActivationTime(vertex);
+        if (activationTime >= 0) {
+            writer.write("</data><data key=\"activation\">");
+            writer.write(Long.toString(activationTime));
+        }
+        writer.write("</data></node>");
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    protected void writeEdge( //
+            final int source, //
+            final int target, //
+            final DefaultEdge edge, //
+            final boolean first, //
+            final Writer writer) throws IOException {
+
+        writer.write("    <edge source=\"");
+        writer.write(Integer.toString(source));
+        writer.write("\" target=\"");
+        writer.write(Integer.toString(target));
+        if (!(edge instanceof ScrReferenceEdge)) {
+            writer.write("\"/>");
+            writer.write(NEW_LINE);
+            return;
+        }
+        final ScrReferenceEdge reference = (ScrReferenceEdge) edge;
+        writer.write("\">");
+        writeData("reference", reference.getName(), writer);
+        writeData("interface", reference.getInterfaceName(), writer);
+        writeData("cardinality", reference.getCardinality(), writer);
+        writeData("policy", reference.getPolicy(), writer);
+        writeData("policyOption", reference.getPolicyOption(), writer);
+        writeData("target", reference.getTarget(), writer);
+        writeData("blocking", Boolean.toString(reference.isBlocking()), writer);
+        writer.write("</edge>");
+        writer.write(NEW_LINE);
+    }
+
+    private void writeData(final String key, final String value, final Writer writer) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write("<data key=\"");
+        writer.write(key);
+        writer.write("\">");
+        writeEscaped(value, writer);
+        writer.write("</data>");
+    }
+
+    @Override
+    protected void writeFooter(final Writer writer) throws IOException {
+        writer.write("  </graph>");
+        writer.write(NEW_LINE);
+        writer.write("</graphml>");
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    protected void writeEscaped(final String value, final Writer writer) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                case '\'':
+                    writer.write("&apos;");
+                    break;
+                default:
+                    writer.write(c);
+                    break;
+            }
+        }
+    }
+
+}
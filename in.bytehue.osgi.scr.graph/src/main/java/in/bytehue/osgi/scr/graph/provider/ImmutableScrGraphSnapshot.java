@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Objects.requireNonNull;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+public final class ImmutableScrGraphSnapshot implements ScrGraphSnapshot {
+
+    private final long changeCount;
+    private final long timestamp;
+    private final Graph<ScrComponent, DefaultEdge> graph;
+
+    /**
+     * Creates a snapshot which takes over the ownership of the specified graph.
+     * The graph must not be modified afterwards.
+     */
+    public ImmutableScrGraphSnapshot(final long changeCount, final Graph<ScrComponent, DefaultEdge> graph) {
+        requireNonNull(graph, "'graph' cannot be null");
+
+        this.changeCount = changeCount;
+        this.timestamp = System.currentTimeMillis();
+        this.graph = new AsUnmodifiableGraph<>(graph);
+    }
+
+    @Override
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public Graph<ScrComponent, DefaultEdge> getGraph() {
+        return graph;
+    }
+
+    @Override
+    public String toString() {
+        return "ScrGraphSnapshot [changeCount=" + changeCount + ", vertices=" + graph.vertexSet().size() + ", edges="
+                + graph.edgeSet().size() + "]";
+    }
+
+}
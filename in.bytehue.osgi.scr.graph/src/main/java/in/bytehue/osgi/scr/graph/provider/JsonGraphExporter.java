@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.api.ScrComponentType.COMPONENT;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrReferenceEdge;
+
+public final class JsonGraphExporter extends ScrGraphExporter {
+
+    @Override
+    protected void writeHeader(final Graph<ScrComponent, DefaultEdge> graph, final Writer writer) throws IOException {
+        writer.write("{\"nodes\":[");
+    }
+
+    @Override
+    protected void writeVertex(final int id, final ScrComponent vertex, final boolean first, final Writer writer)
+            throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        writer.write(NEW_LINE);
+        writer.write("{\"id\":");
+        writer.write(Integer.toString(id));
+        writer.write(",\"label\":\"");
+        writeLabel(vertex, writer);
+        writer.write("\",\"name\":\"");
+        writeEscaped(vertex.description.name, writer);
+        writer.write("\",\"configurationId\":");
+        writer.write(Long.toString(vertex.configuration.id));
+        writer.write(",\"state\":");
+        writer.write(Integer.toString(vertex.configuration.state));
+        if (vertex.type != null && vertex.type != COMPONENT) {
+            writer.write(",\"type\":\"");
+            writer.write(vertex.type.name());
+            writer.write('"');
+        }
+        final long activationTime = getActivationTime(vertex);
+        if (activationTime >= 0) {
+            writer.write(",\"activationNanos\":");
+            writer.write(Long.toString(activationTime));
+        }
+        writer.write('}');
+    }
+
+    @Override
+    protected void writeSeparator(final Writer writer) throws IOException {
+        writer.write("],\"edges\":[");
+    }
+
+    @Override
+    protected void writeEdge( //
+            final int source, //
+            final int target, //
+            final DefaultEdge edge, //
+            final boolean first, //
+            final Writer writer) throws IOException {
+
+        if (!first) {
+            writer.write(',');
+        }
+        writer.write(NEW_LINE);
+        writer.write("{\"source\":");
+        writer.write(Integer.toString(source));
+        writer.write(",\"target\":");
+        writer.write(Integer.toString(target));
+        if (edge instanceof ScrReferenceEdge) {
+            final ScrReferenceEdge reference = (ScrReferenceEdge) edge;
+            writeAttribute("reference", reference.getName(), writer);
+            writeAttribute("interface", reference.getInterfaceName(), writer);
+            writeAttribute("cardinality", reference.getCardinality(), writer);
+            writeAttribute("policy", reference.getPolicy(), writer);
+            writeAttribute("policyOption", reference.getPolicyOption(), writer);
+            writeAttribute("target", reference.getTarget(), writer);
+            writer.write(",\"blocking\":");
+            writer.write(Boolean.toString(reference.isBlocking()));
+        }
+        writer.write('}');
+    }
+
+    private void writeAttribute(final String name, final String value, final Writer writer) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write(",\"");
+        writer.write(name);
+        writer.write("\":\"");
+        writeEscaped(value, writer);
+        writer.write('"');
+    }
+
+    @Override
+    protected void writeFooter(final Writer writer) throws IOException {
+        writer.write("]}");
+        writer.write(NEW_LINE);
+    }
+
+    @Override
+    protected void writeEscaped(final String value, final Writer writer) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                    break;
+            }
+        }
+    }
+
+}
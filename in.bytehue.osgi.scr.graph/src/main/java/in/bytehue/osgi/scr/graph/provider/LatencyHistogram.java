@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import in.bytehue.osgi.scr.graph.api.ScrOperationStatistics;
+
+/**
+ * Concurrent histogram of latencies in the spirit of the HdrHistogram.
+ *
+ * <p>
+ * The values are counted in log-linear buckets: every power of two range is
+ * divided into {@value #SUB_BUCKETS} linear sub-buckets such that the
+ * relative error of a reported value is at most {@code 1 / 32}. The bucket of
+ * a value is computed with a few bit operations and the counters are
+ * preallocated, hence recording does not allocate and does not block.
+ *
+ * @ThreadSafe
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the specified value
+     *
+     * @param value the value in nanoseconds (negative values are recorded as
+     *            {@code 0})
+     */
+    public void record(final long value) {
+        final long nanos = Math.max(0, value);
+
+        counts.incrementAndGet(indexOf(nanos));
+        count.increment();
+        total.add(nanos);
+
+        long current;
+        while (nanos < (current = min.get()) && !min.compareAndSet(current, nanos)) {
+            // retry
+        }
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // retry
+        }
+    }
+
+    /**
+     * Returns the statistics of the recorded values. The statistics are not
+     * an atomic view if values are recorded concurrently.
+     *
+     * @param name the name of the operation
+     * @return the statistics
+     */
+    public ScrOperationStatistics toStatistics(final String name) {
+        final ScrOperationStatistics statistics = new ScrOperationStatistics();
+        final long[] snapshot = new long[counts.length()];
+        long recorded = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            recorded += snapshot[i];
+        }
+        statistics.name = name;
+        statistics.count = recorded;
+        statistics.totalNanos = total.sum();
+        if (recorded > 0) {
+            statistics.minNanos = min.get();
+            statistics.maxNanos = max.get();
+            statistics.p50Nanos = percentile(snapshot, recorded, 0.5, statistics.maxNanos);
+            statistics.p90Nanos = percentile(snapshot, recorded, 0.9, statistics.maxNanos);
+            statistics.p99Nanos = percentile(snapshot, recorded, 0.99, statistics.maxNanos);
+            statistics.p999Nanos = percentile(snapshot, recorded, 0.999, statistics.maxNanos);
+        }
+        return statistics;
+    }
+
+    private static long percentile(final long[] counts, final long recorded, final double percentile, final long max) {
+        final long rank = Math.max(1, (long) Math.ceil(recorded * percentile));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int mantissa = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+    }
+
+    static long upperBoundOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+}
@@ -0,0 +1,610 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.provider.ScrComponentIndex.COMPONENT_ID;
+import static in.bytehue.osgi.scr.graph.provider.ScrComponentIndex.COMPONENT_NAME;
+import static in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.isBlocking;
+import static in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.isSameReference;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Objects.requireNonNull;
+import static org.osgi.framework.Constants.OBJECTCLASS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
+import org.jgrapht.alg.util.Pair;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.SynchronousBundleListener;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+import org.osgi.service.component.runtime.dto.ReferenceDTO;
+import org.osgi.service.component.runtime.dto.SatisfiedReferenceDTO;
+import org.osgi.service.component.runtime.dto.UnsatisfiedReferenceDTO;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrComponentType;
+
+/**
+ * A single SCR graph which is kept up to date by applying vertex and edge
+ * deltas instead of being rebuilt on every request.
+ *
+ * <p>
+ * The events only record what has changed and the next read re-queries the
+ * affected component descriptions from the runtime:
+ * <ul>
+ * <li>the service events of a DS component mark its description (identified
+ * by the {@code component.name} property and the registering bundle) and the
+ * descriptions referencing any of its service interfaces as changed,</li>
+ * <li>the bundle events mark all the descriptions of the bundle as
+ * changed,</li>
+ * <li>changes to the {@code service.changecount} property of the
+ * {@link ServiceComponentRuntime} registration re-query the descriptions
+ * whose changes are not signalled by any service event, i.e. the descriptions
+ * without any service interface and the delayed components which are
+ * activated and deactivated on demand, as well as the descriptions that have
+ * been re-queried since the previous change count. The full-fidelity graph
+ * re-queries all the descriptions instead as the unsatisfied configurations
+ * do not register any service either.</li>
+ * </ul>
+ * The configurations of the affected descriptions replace their vertices
+ * unless their state has not changed. The edges of the other components to
+ * the replaced vertices are reconnected. Reads without any intermediate
+ * change do not query the runtime at all.
+ *
+ * <p>
+ * The graph is handed out as an unmodifiable graph which is shared by all the
+ * readers until the next change.
+ */
+public final class LiveScrGraph implements ServiceListener, SynchronousBundleListener {
+
+    private static final String SCR = ServiceComponentRuntime.class.getName();
+    private static final String FILTER = "(|(" + OBJECTCLASS + "=" + SCR + ")(" + COMPONENT_NAME + "=*))";
+
+    /**
+     * The edge to a replaced vertex that has to be reconnected to its
+     * successor
+     */
+    private static final class Incoming {
+
+        final ScrComponent source;
+        final long targetId;
+        final DefaultEdge edge;
+
+        Incoming(final ScrComponent source, final long targetId, final DefaultEdge edge) {
+            this.source = source;
+            this.targetId = targetId;
+            this.edge = edge;
+        }
+    }
+
+    private final BundleContext bundleContext;
+    private final ServiceComponentRuntime scr;
+    private final Supplier<ScrGraphCollector> collectors;
+    private final boolean fullFidelity;
+
+    // recorded by the listeners
+    private final Set<Pair<Long, String>> changedDescriptions = ConcurrentHashMap.newKeySet();
+    private final Set<String> changedInterfaces = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedBundles = ConcurrentHashMap.newKeySet();
+    private volatile boolean changeCountModified;
+    private volatile boolean stale;
+
+    // guarded by this
+    private final Graph<ScrComponent, DefaultEdge> graph;
+    private final Map<Long, ScrComponent> vertices;
+    private final Map<Pair<Long, String>, List<ScrComponent>> components;
+    private final Map<Long, ScrComponent> services;
+    private final Map<Pair<Long, String>, String[]> references;
+    private final Set<Pair<Long, String>> unsignalled;
+    private final Map<String, Set<Pair<Long, String>>> consumers;
+    private final Set<Pair<Long, String>> recent;
+    private boolean initialized;
+    private Graph<ScrComponent, DefaultEdge> published;
+
+    /**
+     * Creates a live graph
+     *
+     * @param bundleContext the context to listen to the events with
+     * @param scr the runtime to query
+     * @param collectors the supplier of the collectors to query the runtime
+     *            with
+     * @param fullFidelity whether the graph contains the vertices of plain
+     *            services and of the unsatisfied configurations
+     */
+    public LiveScrGraph( //
+            final BundleContext bundleContext, //
+            final ServiceComponentRuntime scr, //
+            final Supplier<ScrGraphCollector> collectors, //
+            final boolean fullFidelity) {
+
+        this.bundleContext = requireNonNull(bundleContext, "'bundleContext' cannot be null");
+        this.scr = requireNonNull(scr, "'scr' cannot be null");
+        this.collectors = requireNonNull(collectors, "'collectors' cannot be null");
+        this.fullFidelity = fullFidelity;
+
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        vertices = new HashMap<>();
+        components = new HashMap<>();
+        services = new HashMap<>();
+        references = new HashMap<>();
+        unsignalled = new HashSet<>();
+        consumers = new HashMap<>();
+        recent = new HashSet<>();
+        stale = true;
+    }
+
+    public void open() {
+        try {
+            // the events of all services are relevant if the graph contains plain services
+            bundleContext.addServiceListener(this, fullFidelity ? null : FILTER);
+        } catch (final InvalidSyntaxException e) {
+            throw new IllegalStateException(e); // the filter is a constant
+        }
+        bundleContext.addBundleListener(this);
+    }
+
+    public void close() {
+        bundleContext.removeServiceListener(this);
+        bundleContext.removeBundleListener(this);
+    }
+
+    @Override
+    public void serviceChanged(final ServiceEvent event) {
+        final ServiceReference<?> reference = event.getServiceReference();
+        final Object objectClass = reference.getProperty(OBJECTCLASS);
+        final List<String> interfaces = objectClass instanceof String[] ? Arrays.asList((String[]) objectClass)
+                : emptyList();
+
+        if (interfaces.contains(SCR)) {
+            changeCountModified = true;
+        } else {
+            final Object name = reference.getProperty(COMPONENT_NAME);
+            final Bundle bundle = reference.getBundle();
+            if (name instanceof String && bundle != null) {
+                changedDescriptions.add(Pair.of(bundle.getBundleId(), (String) name));
+            } else if (name != null) {
+                // the description is re-queried with the next change count
+                changeCountModified = true;
+            }
+            changedInterfaces.addAll(interfaces);
+        }
+        stale = true;
+    }
+
+    @Override
+    public void bundleChanged(final BundleEvent event) {
+        switch (event.getType()) {
+            case BundleEvent.STARTED:
+            case BundleEvent.STOPPED:
+            case BundleEvent.UPDATED:
+            case BundleEvent.UNINSTALLED:
+                changedBundles.add(event.getBundle().getBundleId());
+                stale = true;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the current graph, reconciling it with the runtime beforehand if
+     * any change has been observed since the last invocation. The returned
+     * graph is unmodifiable and shared until the next change.
+     *
+     * @return the {@link Graph} instance
+     */
+    public synchronized Graph<ScrComponent, DefaultEdge> getGraph() {
+        if (stale) {
+            // reset first so that changes that occur during the reconciliation are not lost
+            stale = false;
+            if (reconcile()) {
+                published = null;
+            }
+        }
+        if (published == null) {
+            final Graph<ScrComponent, DefaultEdge> copy = new DefaultDirectedGraph<>(DefaultEdge.class);
+            Graphs.addGraph(copy, graph);
+            published = new AsUnmodifiableGraph<>(copy);
+        }
+        return published;
+    }
+
+    /**
+     * Re-queries the changed descriptions and applies the deltas
+     *
+     * @return {@code true} if the graph has been modified
+     */
+    private boolean reconcile() {
+        final Map<Pair<Long, String>, ComponentDescriptionDTO> updated = new HashMap<>();
+        final Set<Pair<Long, String>> removed = new HashSet<>();
+        final boolean complete = !initialized;
+        if (complete) {
+            initialized = true;
+            changedDescriptions.clear();
+            changedInterfaces.clear();
+            changedBundles.clear();
+            changeCountModified = false;
+            for (final ComponentDescriptionDTO description : scr.getComponentDescriptionDTOs()) {
+                updated.put(keyOf(description), description);
+            }
+        } else {
+            for (final Long bundleId : drain(changedBundles)) {
+                queryBundle(bundleId, updated, removed);
+            }
+            final Set<Pair<Long, String>> changed = drain(changedDescriptions);
+            for (final String interfaceName : drain(changedInterfaces)) {
+                changed.addAll(consumers.getOrDefault(interfaceName, emptySet()));
+            }
+            recent.addAll(updated.keySet());
+            recent.addAll(changed);
+            if (changeCountModified) {
+                changeCountModified = false;
+                // the events are delivered before the runtime has processed some of the changes
+                changed.addAll(recent);
+                // the configurations might become unsatisfied or be created as such without any event
+                changed.addAll(fullFidelity ? references.keySet() : unsignalled);
+                recent.clear();
+            }
+            for (final Pair<Long, String> key : changed) {
+                if (!updated.containsKey(key) && !removed.contains(key)) {
+                    queryDescription(key, updated, removed);
+                }
+            }
+        }
+        if (updated.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+        return apply(updated, removed, complete);
+    }
+
+    private void queryBundle( //
+            final long bundleId, //
+            final Map<Pair<Long, String>, ComponentDescriptionDTO> updated, //
+            final Set<Pair<Long, String>> removed) {
+
+        final Bundle bundle = bundleContext.getBundle(bundleId);
+        if (bundle != null) {
+            for (final ComponentDescriptionDTO description : scr.getComponentDescriptionDTOs(bundle)) {
+                updated.put(keyOf(description), description);
+            }
+        }
+        for (final Pair<Long, String> key : references.keySet()) {
+            if (key.getFirst() == bundleId && !updated.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+    }
+
+    private void queryDescription( //
+            final Pair<Long, String> key, //
+            final Map<Pair<Long, String>, ComponentDescriptionDTO> updated, //
+            final Set<Pair<Long, String>> removed) {
+
+        final Bundle bundle = bundleContext.getBundle(key.getFirst());
+        final ComponentDescriptionDTO description = bundle == null ? null
+                : scr.getComponentDescriptionDTO(bundle, key.getSecond());
+        if (description != null) {
+            updated.put(key, description);
+        } else if (references.containsKey(key)) {
+            removed.add(key);
+        }
+    }
+
+    private boolean apply( //
+            final Map<Pair<Long, String>, ComponentDescriptionDTO> updated, //
+            final Set<Pair<Long, String>> removed, //
+            final boolean complete) {
+
+        final Set<Pair<Long, String>> affected = new HashSet<>(updated.keySet());
+        affected.addAll(removed);
+
+        // the references are read before the descriptions might be compacted
+        for (final Pair<Long, String> key : removed) {
+            unregister(key);
+        }
+        for (final Map.Entry<Pair<Long, String>, ComponentDescriptionDTO> entry : updated.entrySet()) {
+            unregister(entry.getKey());
+            register(entry.getKey(), entry.getValue());
+        }
+
+        final List<ScrComponent> collected = new ArrayList<>();
+        final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
+        collectors.get().collect( //
+                updated.values(), //
+                service -> resolve(service, affected), //
+                services, //
+                complete, //
+                collected, //
+                edges);
+
+        final Map<Long, ScrComponent> configurations = new HashMap<>();
+        for (final ScrComponent component : collected) {
+            if (component.type == ScrComponentType.COMPONENT) {
+                configurations.put(component.configuration.id, component);
+            }
+        }
+        boolean modified = false;
+
+        // vertex deltas, a vertex is only replaced if its configuration has changed
+        final Map<ScrComponent, ScrComponent> kept = new IdentityHashMap<>();
+        final List<Incoming> incoming = new ArrayList<>();
+        for (final Pair<Long, String> key : affected) {
+            for (final ScrComponent existing : components.getOrDefault(key, emptyList())) {
+                // the vertices of the unsatisfied references are always replaced with their component
+                modified |= removeUnsatisfiedReferences(existing);
+
+                final ScrComponent update = configurations.get(existing.configuration.id);
+                if (update != null && isSameConfiguration(existing, update)) {
+                    kept.put(update, existing);
+                    continue;
+                }
+                for (final DefaultEdge edge : graph.incomingEdgesOf(existing)) {
+                    incoming.add(new Incoming(graph.getEdgeSource(edge), existing.configuration.id, edge));
+                }
+                graph.removeVertex(existing);
+                vertices.remove(existing.configuration.id);
+                modified = true;
+            }
+            components.remove(key);
+        }
+        for (final ScrComponent component : collected) {
+            final ScrComponent vertex = kept.getOrDefault(component, component);
+            if (vertex == component && graph.addVertex(component)) {
+                modified = true;
+            }
+            if (vertex.type == ScrComponentType.COMPONENT) {
+                vertices.put(vertex.configuration.id, vertex);
+                components.computeIfAbsent(keyOf(vertex.description), k -> new ArrayList<>(1)).add(vertex);
+            }
+        }
+
+        // edge deltas, an edge of a kept vertex is only replaced if its reference has changed
+        final Map<Pair<ScrComponent, ScrComponent>, DefaultEdge> expected = new HashMap<>();
+        for (final Pair<ScrComponent, ScrComponent> edge : edges) {
+            final ScrComponent source = kept.getOrDefault(edge.getFirst(), edge.getFirst());
+            final ScrComponent target = kept.getOrDefault(edge.getSecond(), edge.getSecond());
+            expected.merge(Pair.of(source, target), ScrGraphHelper.createEdge(edge),
+                    (existing, other) -> isBlocking(existing) || !isBlocking(other) ? existing : other);
+        }
+        final Set<ScrComponent> recollected = newIdentitySet(kept.values());
+        for (final ScrComponent source : recollected) {
+            for (final DefaultEdge edge : new ArrayList<>(graph.outgoingEdgesOf(source))) {
+                final Pair<ScrComponent, ScrComponent> key = Pair.of(source, graph.getEdgeTarget(edge));
+                final DefaultEdge replacement = expected.get(key);
+                if (replacement != null && isSameReference(edge, replacement)) {
+                    expected.remove(key);
+                } else {
+                    graph.removeEdge(edge);
+                    modified = true;
+                }
+            }
+        }
+        for (final Map.Entry<Pair<ScrComponent, ScrComponent>, DefaultEdge> entry : expected.entrySet()) {
+            graph.addEdge(entry.getKey().getFirst(), entry.getKey().getSecond(), entry.getValue());
+            modified = true;
+        }
+        // the edges are copied as they are still connected in the published graphs
+        for (final Incoming edge : incoming) {
+            final ScrComponent target = vertices.get(edge.targetId);
+            if (target != null && graph.containsVertex(edge.source) && !recollected.contains(edge.source)) {
+                ScrGraphHelper.addEdge(graph, edge.source, target, ScrGraphHelper.copyEdge(edge.edge));
+            }
+        }
+        // the plain services that are not bound anymore
+        final Iterator<ScrComponent> iterator = services.values().iterator();
+        while (iterator.hasNext()) {
+            final ScrComponent service = iterator.next();
+            if (!graph.containsVertex(service) || graph.inDegreeOf(service) == 0) {
+                graph.removeVertex(service);
+                iterator.remove();
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Resolves the specified service to a vertex of the graph unless its
+     * description is affected by the current reconciliation
+     */
+    private ScrComponent resolve(final ServiceReferenceDTO service, final Set<Pair<Long, String>> affected) {
+        final Object id = service.properties.get(COMPONENT_ID);
+        if (id instanceof Number) {
+            final ScrComponent component = vertices.get(((Number) id).longValue());
+            if (component != null) {
+                return affected.contains(keyOf(component.description)) ? null : component;
+            }
+        }
+        final Object name = service.properties.get(COMPONENT_NAME);
+        if (!(name instanceof String)) {
+            return null;
+        }
+        final Pair<Long, String> key = Pair.of(service.bundle, (String) name);
+        final List<ScrComponent> configurations = components.get(key);
+        return configurations == null || affected.contains(key) ? null : configurations.get(0);
+    }
+
+    private boolean removeUnsatisfiedReferences(final ScrComponent component) {
+        final List<ScrComponent> references = new ArrayList<>();
+        for (final DefaultEdge edge : graph.outgoingEdgesOf(component)) {
+            final ScrComponent target = graph.getEdgeTarget(edge);
+            if (target.type == ScrComponentType.UNSATISFIED_REFERENCE) {
+                references.add(target);
+            }
+        }
+        return graph.removeAllVertices(references);
+    }
+
+    private void register(final Pair<Long, String> key, final ComponentDescriptionDTO description) {
+        final ReferenceDTO[] referenceDTOs = description.references == null ? new ReferenceDTO[0]
+                : description.references;
+        final String[] interfaces = new String[referenceDTOs.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = referenceDTOs[i].interfaceName;
+            consumers.computeIfAbsent(interfaces[i], k -> new HashSet<>()).add(key);
+        }
+        references.put(key, interfaces);
+        if (description.serviceInterfaces == null || description.serviceInterfaces.length == 0
+                || !description.immediate) {
+            unsignalled.add(key);
+        }
+    }
+
+    private void unregister(final Pair<Long, String> key) {
+        final String[] interfaces = references.remove(key);
+        if (interfaces == null) {
+            return;
+        }
+        for (final String interfaceName : interfaces) {
+            final Set<Pair<Long, String>> keys = consumers.get(interfaceName);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                consumers.remove(interfaceName);
+            }
+        }
+        unsignalled.remove(key);
+    }
+
+    /**
+     * Checks whether the vertices carry the same state, properties and bound
+     * services such that the existing vertex can be kept
+     */
+    private static boolean isSameConfiguration(final ScrComponent existing, final ScrComponent update) {
+        final ComponentConfigurationDTO configuration = existing.configuration;
+        final ComponentConfigurationDTO other = update.configuration;
+        return configuration.state == other.state //
+                && existing.description.bundle.lastModified == update.description.bundle.lastModified //
+                && Objects.equals(configuration.failure, other.failure) //
+                && getId(configuration.service) == getId(other.service) //
+                && isSameProperties(configuration.properties, other.properties) //
+                && isSameReferences(configuration.satisfiedReferences, other.satisfiedReferences) //
+                && isSameReferences(configuration.unsatisfiedReferences, other.unsatisfiedReferences);
+    }
+
+    private static boolean isSameProperties(final Map<String, Object> properties, final Map<String, Object> other) {
+        if (properties == null || other == null || properties.size() != other.size()) {
+            return properties == other;
+        }
+        for (final Map.Entry<String, Object> entry : properties.entrySet()) {
+            // the array properties are compared by their elements
+            if (!Objects.deepEquals(entry.getValue(), other.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameReferences( //
+            final SatisfiedReferenceDTO[] references, //
+            final SatisfiedReferenceDTO[] other) {
+
+        if (references == null || other == null || references.length != other.length) {
+            return references == other;
+        }
+        for (int i = 0; i < references.length; i++) {
+            if (!Objects.equals(references[i].name, other[i].name)
+                    || !Objects.equals(references[i].target, other[i].target)
+                    || !isSameServices(references[i].boundServices, other[i].boundServices)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameReferences( //
+            final UnsatisfiedReferenceDTO[] references, //
+            final UnsatisfiedReferenceDTO[] other) {
+
+        if (references == null || other == null || references.length != other.length) {
+            return references == other;
+        }
+        for (int i = 0; i < references.length; i++) {
+            if (!Objects.equals(references[i].name, other[i].name)
+                    || !Objects.equals(references[i].target, other[i].target)
+                    || !isSameServices(references[i].targetServices, other[i].targetServices)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameServices(final ServiceReferenceDTO[] services, final ServiceReferenceDTO[] other) {
+        if (services == null || other == null || services.length != other.length) {
+            return services == other;
+        }
+        for (int i = 0; i < services.length; i++) {
+            if (services[i].id != other[i].id) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long getId(final ServiceReferenceDTO service) {
+        return service == null ? -1 : service.id;
+    }
+
+    private static Pair<Long, String> keyOf(final ComponentDescriptionDTO description) {
+        return Pair.of(description.bundle.id, description.name);
+    }
+
+    /**
+     * Removes and returns the elements recorded by the listeners. An element
+     * that is recorded again concurrently is kept for the next reconciliation.
+     */
+    private static <T> Set<T> drain(final Set<T> recorded) {
+        final Set<T> drained = new HashSet<>();
+        final Iterator<T> iterator = recorded.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private static Set<ScrComponent> newIdentitySet(final Collection<ScrComponent> components) {
+        final Set<ScrComponent> set = newSetFromMap(new IdentityHashMap<>());
+        set.addAll(components);
+        return set;
+    }
+
+}
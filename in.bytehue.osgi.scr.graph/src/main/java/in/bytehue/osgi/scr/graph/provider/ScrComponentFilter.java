@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.regex.Pattern;
+
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+
+import in.bytehue.osgi.scr.graph.api.ScrGraphFilter;
+
+/**
+ * Compiled form of a {@link ScrGraphFilter} which is evaluated while the DTOs
+ * are collected from the runtime.
+ *
+ * <p>
+ * The description level criteria are checked before the configurations of a
+ * description are queried such that excluded components are never
+ * materialized.
+ */
+public final class ScrComponentFilter {
+
+    private final Pattern bundleSymbolicName;
+    private final Pattern name;
+    private final int states;
+    private final Pattern serviceInterface;
+
+    private ScrComponentFilter(final ScrGraphFilter filter) {
+        bundleSymbolicName = compile(filter.bundleSymbolicName);
+        name = compile(filter.name);
+        states = filter.states;
+        serviceInterface = compile(filter.serviceInterface);
+    }
+
+    public static ScrComponentFilter of(final ScrGraphFilter filter) {
+        requireNonNull(filter, "'filter' cannot be null");
+        return new ScrComponentFilter(filter);
+    }
+
+    public boolean matches(final ComponentDescriptionDTO description) {
+        if (name != null && !name.matcher(description.name).matches()) {
+            return false;
+        }
+        if (bundleSymbolicName != null && (description.bundle == null || description.bundle.symbolicName == null
+                || !bundleSymbolicName.matcher(description.bundle.symbolicName).matches())) {
+            return false;
+        }
+        if (serviceInterface != null) {
+            if (description.serviceInterfaces == null) {
+                return false;
+            }
+            for (final String service : description.serviceInterfaces) {
+                if (serviceInterface.matcher(service).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the filter restricts the configuration states
+     */
+    public boolean hasStates() {
+        return states != 0;
+    }
+
+    public boolean matches(final int state) {
+        return (states & state) != 0;
+    }
+
+    private static Pattern compile(final String glob) {
+        if (glob == null || glob.isEmpty()) {
+            return null;
+        }
+        final StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = glob.indexOf('*'); i >= 0; i = glob.indexOf('*', start)) {
+            if (i > start) {
+                regex.append(Pattern.quote(glob.substring(start, i)));
+            }
+            regex.append(".*");
+            start = i + 1;
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.osgi.framework.dto.ServiceReferenceDTO;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+
+/**
+ * Hash based index of the {@link ScrComponent}s of a single SCR snapshot which
+ * is used to resolve bound services to their providing components in constant
+ * time.
+ *
+ * <p>
+ * A bound service is matched against the {@code component.id} property first
+ * as a single component description can have several configurations. The
+ * {@code component.name} property is only used as a fallback if no identifier
+ * is available or known.
+ */
+public final class ScrComponentIndex {
+
+    public static final String COMPONENT_ID = "component.id";
+    public static final String COMPONENT_NAME = "component.name";
+
+    private final Map<Long, ScrComponent> byId;
+    private final Map<String, ScrComponent> byName;
+
+    private ScrComponentIndex(final int size) {
+        byId = new HashMap<>(capacity(size));
+        byName = new HashMap<>(capacity(size));
+    }
+
+    public static ScrComponentIndex of(final Collection<ScrComponent> components) {
+        requireNonNull(components, "'components' cannot be null");
+
+        final ScrComponentIndex index = new ScrComponentIndex(components.size());
+        for (final ScrComponent component : components) {
+            index.byId.put(component.configuration.id, component);
+            index.byName.putIfAbsent(component.description.name, component);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the component which has registered the specified service
+     *
+     * @param service the bound service
+     * @return the providing component or {@code null} if the service has not
+     *         been registered by any of the indexed components
+     */
+    public ScrComponent resolve(final ServiceReferenceDTO service) {
+        final Object id = service.properties.get(COMPONENT_ID);
+        if (id instanceof Number) {
+            final ScrComponent component = byId.get(((Number) id).longValue());
+            if (component != null) {
+                return component;
+            }
+        }
+        final Object name = service.properties.get(COMPONENT_NAME);
+        return name == null ? null : byName.get(name);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private static int capacity(final int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+}
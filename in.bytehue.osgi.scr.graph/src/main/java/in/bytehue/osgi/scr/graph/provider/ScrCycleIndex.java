@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+import org.jgrapht.alg.cycle.DirectedSimpleCycles;
+import org.jgrapht.alg.cycle.HawickJamesSimpleCycles;
+import org.jgrapht.alg.cycle.JohnsonSimpleCycles;
+import org.jgrapht.alg.cycle.SzwarcfiterLauerSimpleCycles;
+import org.jgrapht.alg.cycle.TarjanSimpleCycles;
+import org.jgrapht.alg.cycle.TiernanSimpleCycles;
+import org.jgrapht.graph.AsSubgraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+/**
+ * Index of the simple cycles of the SCR graph which is maintained per
+ * strongly connected component (SCC).
+ *
+ * <p>
+ * Simple cycles never cross the boundaries of a SCC. Hence, whenever a new
+ * snapshot is indexed, the SCCs are recomputed in linear time and the simple
+ * cycles are only enumerated for the SCCs whose vertices or internal edges
+ * have changed since the previously indexed snapshot. The cycles of all
+ * untouched SCCs are reused from the cache.
+ *
+ * <p>
+ * As the SCCs are independent of each other, the SCCs to enumerate can be
+ * processed in parallel on a {@link ForkJoinPool}. The results are merged in
+ * the order of the SCCs and every cycle is rotated to start at its vertex
+ * with the smallest configuration identifier while the cycles of a SCC are
+ * sorted lexicographically. Hence, the order of the cycles is deterministic
+ * regardless of the parallelism and the enumeration algorithm.
+ */
+public final class ScrCycleIndex {
+
+    /**
+     * The supported simple cycle enumeration algorithms
+     */
+    public enum Algorithm {
+        TARJAN,
+        JOHNSON,
+        HAWICK_JAMES,
+        TIERNAN,
+        SZWARCFITER_LAUER;
+
+        /**
+         * Returns the simple cycles of the specified graph with their vertices
+         * in the direction of the edges
+         */
+        <V, E> List<List<V>> findSimpleCycles(final Graph<V, E> graph) {
+            final List<List<V>> cycles = create(graph).findSimpleCycles();
+            if (this == HAWICK_JAMES) {
+                // the implementation reports the vertices against the direction of the edges
+                cycles.forEach(Collections::reverse);
+            }
+            return cycles;
+        }
+
+        private <V, E> DirectedSimpleCycles<V, E> create(final Graph<V, E> graph) {
+            switch (this) {
+                case JOHNSON:
+                    return new JohnsonSimpleCycles<>(graph);
+                case HAWICK_JAMES:
+                    return new HawickJamesSimpleCycles<>(graph);
+                case TIERNAN:
+                    return new TiernanSimpleCycles<>(graph);
+                case SZWARCFITER_LAUER:
+                    return new SzwarcfiterLauerSimpleCycles<>(graph);
+                case TARJAN:
+                default:
+                    return new TarjanSimpleCycles<>(graph);
+            }
+        }
+    }
+
+    private static final Comparator<ScrComponent> BY_ID = comparingLong(c -> c.configuration.id);
+
+    private final Algorithm algorithm;
+    private final ForkJoinPool pool;
+
+    private ScrGraphSnapshot indexed;
+    private List<List<ScrComponent>> cycles;
+    private ScrGraphSnapshot partitioned;
+    private List<List<ScrComponent>> sccs;
+    private Map<SccKey, List<long[]>> cache = new HashMap<>();
+
+    /**
+     * Creates an index that enumerates the cycles sequentially using the
+     * algorithm of Tarjan
+     */
+    public ScrCycleIndex() {
+        this(Algorithm.TARJAN, null);
+    }
+
+    /**
+     * Creates an index
+     *
+     * @param algorithm the enumeration algorithm
+     * @param pool the pool to enumerate the SCCs in parallel or {@code null}
+     *            to enumerate them sequentially
+     */
+    public ScrCycleIndex(final Algorithm algorithm, final ForkJoinPool pool) {
+        this.algorithm = requireNonNull(algorithm, "'algorithm' cannot be null");
+        this.pool = pool;
+    }
+
+    /**
+     * Returns all simple cycles of the specified snapshot
+     *
+     * @param snapshot the snapshot to inspect
+     * @return the unmodifiable list of cycles
+     */
+    public synchronized List<List<ScrComponent>> getCycles(final ScrGraphSnapshot snapshot) {
+        if (snapshot != indexed) {
+            index(snapshot);
+        }
+        return cycles;
+    }
+
+    /**
+     * Returns the strongly connected components of the specified snapshot
+     * which contain at least one cycle, i.e. the components having more
+     * than one vertex or a vertex with a self-loop
+     *
+     * <p>
+     * The vertices of each component as well as the components are ordered by
+     * their configuration identifiers.
+     *
+     * @param snapshot the snapshot to inspect
+     * @return the unmodifiable list of cyclic strongly connected components
+     */
+    public synchronized List<List<ScrComponent>> getStronglyConnectedComponents(final ScrGraphSnapshot snapshot) {
+        if (snapshot != partitioned) {
+            partition(snapshot);
+        }
+        return sccs;
+    }
+
+    private void partition(final ScrGraphSnapshot snapshot) {
+        final Graph<ScrComponent, DefaultEdge> graph = snapshot.getGraph();
+        final List<List<ScrComponent>> cyclic = new ArrayList<>();
+
+        for (final Set<ScrComponent> scc : new KosarajuStrongConnectivityInspector<>(graph).stronglyConnectedSets()) {
+            if (isCyclic(graph, scc)) {
+                final List<ScrComponent> components = new ArrayList<>(scc);
+                components.sort(BY_ID);
+                cyclic.add(unmodifiableList(components));
+            }
+        }
+        cyclic.sort((scc1, scc2) -> BY_ID.compare(scc1.get(0), scc2.get(0)));
+
+        sccs = unmodifiableList(cyclic);
+        partitioned = snapshot;
+    }
+
+    private void index(final ScrGraphSnapshot snapshot) {
+        final Graph<ScrComponent, DefaultEdge> graph = snapshot.getGraph();
+        final List<List<ScrComponent>> members = getStronglyConnectedComponents(snapshot);
+
+        final List<Set<ScrComponent>> components = new ArrayList<>(members.size());
+        final List<SccKey> keys = new ArrayList<>(members.size());
+        final List<Set<ScrComponent>> misses = new ArrayList<>();
+        for (final List<ScrComponent> scc : members) {
+            final Set<ScrComponent> vertices = new HashSet<>(scc);
+            final SccKey key = SccKey.of(graph, vertices);
+            components.add(vertices);
+            keys.add(key);
+            if (!cache.containsKey(key)) {
+                misses.add(vertices);
+            }
+        }
+        final List<List<long[]>> enumerated = enumerate(graph, misses);
+
+        final Map<SccKey, List<long[]>> updatedCache = new HashMap<>();
+        final List<List<ScrComponent>> updatedCycles = new ArrayList<>();
+
+        int miss = 0;
+        for (int i = 0; i < components.size(); i++) {
+            final SccKey key = keys.get(i);
+            List<long[]> sccCycles = cache.get(key);
+            if (sccCycles == null) {
+                sccCycles = enumerated.get(miss++);
+            }
+            updatedCache.put(key, sccCycles);
+
+            final Map<Long, ScrComponent> vertices = new HashMap<>();
+            components.get(i).forEach(v -> vertices.put(v.configuration.id, v));
+            for (final long[] cycle : sccCycles) {
+                final List<ScrComponent> cycleComponents = new ArrayList<>(cycle.length);
+                for (final long id : cycle) {
+                    cycleComponents.add(vertices.get(id));
+                }
+                updatedCycles.add(unmodifiableList(cycleComponents));
+            }
+        }
+        cache = updatedCache;
+        cycles = unmodifiableList(updatedCycles);
+        indexed = snapshot;
+    }
+
+    /**
+     * Enumerates the cycles of the specified SCCs, in parallel if a pool is
+     * available and there is more than one SCC to enumerate
+     */
+    private List<List<long[]>> enumerate( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final List<Set<ScrComponent>> sccs) {
+
+        if (pool == null || sccs.size() < 2) {
+            final List<List<long[]>> result = new ArrayList<>(sccs.size());
+            for (final Set<ScrComponent> scc : sccs) {
+                result.add(enumerate(graph, scc, algorithm));
+            }
+            return result;
+        }
+        // the ordered stream merges the results in the order of the SCCs
+        return ScrGraphCollector.join(pool.submit(() -> sccs.parallelStream() //
+                .map(scc -> enumerate(graph, scc, algorithm)) //
+                .collect(toList())));
+    }
+
+    private static List<long[]> enumerate( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final Set<ScrComponent> scc, //
+            final Algorithm algorithm) {
+
+        final Graph<ScrComponent, DefaultEdge> subgraph = new AsSubgraph<>(graph, scc);
+        final List<long[]> result = new ArrayList<>();
+
+        for (final List<ScrComponent> cycle : algorithm.findSimpleCycles(subgraph)) {
+            result.add(normalize(cycle.stream().mapToLong(c -> c.configuration.id).toArray()));
+        }
+        result.sort(ScrCycleIndex::compare);
+        return result;
+    }
+
+    /**
+     * Rotates the cycle such that it starts at its smallest identifier
+     */
+    private static long[] normalize(final long[] cycle) {
+        int min = 0;
+        for (int i = 1; i < cycle.length; i++) {
+            if (cycle[i] < cycle[min]) {
+                min = i;
+            }
+        }
+        if (min == 0) {
+            return cycle;
+        }
+        final long[] rotated = new long[cycle.length];
+        for (int i = 0; i < cycle.length; i++) {
+            rotated[i] = cycle[(min + i) % cycle.length];
+        }
+        return rotated;
+    }
+
+    private static int compare(final long[] cycle1, final long[] cycle2) {
+        final int length = Math.min(cycle1.length, cycle2.length);
+        for (int i = 0; i < length; i++) {
+            if (cycle1[i] != cycle2[i]) {
+                return Long.compare(cycle1[i], cycle2[i]);
+            }
+        }
+        return Integer.compare(cycle1.length, cycle2.length);
+    }
+
+    private static boolean isCyclic(final Graph<ScrComponent, DefaultEdge> graph, final Set<ScrComponent> scc) {
+        if (scc.size() > 1) {
+            return true;
+        }
+        final ScrComponent vertex = scc.iterator().next();
+        return graph.containsEdge(vertex, vertex);
+    }
+
+    /**
+     * Identifies a SCC by its sorted vertex identifiers and its sorted
+     * internal edges
+     */
+    private static final class SccKey {
+
+        private final long[] vertices;
+        private final long[] edges;
+        private final int hash;
+
+        private SccKey(final long[] vertices, final long[] edges) {
+            this.vertices = vertices;
+            this.edges = edges;
+            hash = 31 * Arrays.hashCode(vertices) + Arrays.hashCode(edges);
+        }
+
+        static SccKey of(final Graph<ScrComponent, DefaultEdge> graph, final Set<ScrComponent> scc) {
+            final long[] vertices = scc.stream().mapToLong(c -> c.configuration.id).sorted().toArray();
+            final List<long[]> internal = new ArrayList<>();
+            for (final ScrComponent source : scc) {
+                for (final DefaultEdge edge : graph.outgoingEdgesOf(source)) {
+                    final ScrComponent target = graph.getEdgeTarget(edge);
+                    if (scc.contains(target)) {
+                        internal.add(new long[] { source.configuration.id, target.configuration.id });
+                    }
+                }
+            }
+            internal.sort((e1, e2) -> e1[0] != e2[0] ? Long.compare(e1[0], e2[0]) : Long.compare(e1[1], e2[1]));
+
+            final long[] edges = new long[internal.size() * 2];
+            for (int i = 0; i < internal.size(); i++) {
+                edges[2 * i] = internal.get(i)[0];
+                edges[2 * i + 1] = internal.get(i)[1];
+            }
+            return new SccKey(vertices, edges);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SccKey)) {
+                return false;
+            }
+            final SccKey other = (SccKey) obj;
+            return hash == other.hash && Arrays.equals(vertices, other.vertices) && Arrays.equals(edges, other.edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
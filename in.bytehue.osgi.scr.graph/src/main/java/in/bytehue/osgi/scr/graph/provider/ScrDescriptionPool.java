@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+import org.osgi.service.component.runtime.dto.ReferenceDTO;
+import org.osgi.service.component.runtime.dto.SatisfiedReferenceDTO;
+import org.osgi.service.component.runtime.dto.UnsatisfiedReferenceDTO;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrComponentType;
+
+/**
+ * Pool of the lightweight component descriptions which are shared by the
+ * vertices of the lightweight graphs.
+ *
+ * <p>
+ * A lightweight vertex only retains the identity of its configuration (the
+ * identifier and the state) and refers to a single interned description per
+ * component which only retains the name, the bundle, the implementation class,
+ * the service interfaces and the activation attributes. The properties, the
+ * registered service and the failure are already dropped while the DTOs are
+ * collected (see {@link #strip(ComponentDescriptionDTO)}) whereas the
+ * references and the bound services are dropped as soon as the graph has been
+ * wired. The full DTOs can still be fetched from the runtime on demand.
+ *
+ * <p>
+ * <b>Note that</b>, the runtime still creates the complete DTOs on every
+ * collection. The lightweight mode reduces the heap retained by the graphs and
+ * the snapshots, not the allocations of the collection itself.
+ *
+ * <p>
+ * The pooled descriptions are keyed by the bundle identifier and the component
+ * name and are replaced as soon as the bundle has been modified. The
+ * descriptions of the components that no longer exist are purged after every
+ * complete collection.
+ *
+ * @ThreadSafe
+ */
+public final class ScrDescriptionPool {
+
+    private static final ReferenceDTO[] NO_REFERENCES = new ReferenceDTO[0];
+    private static final SatisfiedReferenceDTO[] NO_SATISFIED_REFERENCES = new SatisfiedReferenceDTO[0];
+    private static final UnsatisfiedReferenceDTO[] NO_UNSATISFIED_REFERENCES = new UnsatisfiedReferenceDTO[0];
+
+    private static final class Key {
+
+        final long bundleId;
+        final String name;
+
+        Key(final long bundleId, final String name) {
+            this.bundleId = bundleId;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return bundleId == other.bundleId && Objects.equals(name, other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(bundleId) + Objects.hashCode(name);
+        }
+    }
+
+    private final Map<Key, ComponentDescriptionDTO> descriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Drops the properties of the specified description which are not
+     * required to wire the graph
+     */
+    public static void strip(final ComponentDescriptionDTO description) {
+        description.properties = emptyMap();
+    }
+
+    /**
+     * Drops the properties, the registered service and the failure of the
+     * specified configuration which are not required to wire the graph
+     */
+    public static void strip(final ComponentConfigurationDTO configuration) {
+        configuration.properties = emptyMap();
+        configuration.service = null;
+        configuration.failure = null;
+    }
+
+    /**
+     * Replaces the DTOs of the specified component vertices by their
+     * lightweight counterparts. The synthesized vertices of the full-fidelity
+     * mode are left untouched.
+     *
+     * @param components the vertices to compact
+     * @param complete {@code true} if the vertices comprise all the components
+     *            of the runtime such that the descriptions of the other
+     *            components can be purged
+     */
+    public void compact(final Collection<ScrComponent> components, final boolean complete) {
+        requireNonNull(components, "'components' cannot be null");
+
+        final Set<Key> used = complete ? new HashSet<>() : null;
+        for (final ScrComponent component : components) {
+            if (component.type != ScrComponentType.COMPONENT) {
+                continue;
+            }
+            final ComponentDescriptionDTO description = intern(component.description);
+            component.description = description;
+            compact(component.configuration, description);
+            if (used != null) {
+                used.add(new Key(description.bundle.id, description.name));
+            }
+        }
+        if (used != null) {
+            descriptions.keySet().retainAll(used);
+        }
+    }
+
+    /**
+     * Returns the number of pooled descriptions
+     */
+    public int size() {
+        return descriptions.size();
+    }
+
+    private ComponentDescriptionDTO intern(final ComponentDescriptionDTO description) {
+        final Key key = new Key(description.bundle.id, description.name);
+        final ComponentDescriptionDTO pooled = descriptions.get(key);
+        if (pooled != null && pooled.bundle.lastModified == description.bundle.lastModified) {
+            return pooled;
+        }
+        final ComponentDescriptionDTO lightweight = compact(description);
+        descriptions.put(key, lightweight);
+        return lightweight;
+    }
+
+    private static ComponentDescriptionDTO compact(final ComponentDescriptionDTO description) {
+        final ComponentDescriptionDTO lightweight = new ComponentDescriptionDTO();
+
+        lightweight.name = description.name;
+        lightweight.bundle = description.bundle;
+        lightweight.implementationClass = description.implementationClass;
+        lightweight.serviceInterfaces = description.serviceInterfaces;
+        lightweight.scope = description.scope;
+        lightweight.factory = description.factory;
+        lightweight.immediate = description.immediate;
+        lightweight.defaultEnabled = description.defaultEnabled;
+        lightweight.references = NO_REFERENCES;
+        lightweight.properties = emptyMap();
+
+        return lightweight;
+    }
+
+    /**
+     * Compacts the specified configuration in place as it is owned by the
+     * vertex
+     */
+    private static void compact( //
+            final ComponentConfigurationDTO configuration, //
+            final ComponentDescriptionDTO description) {
+
+        strip(configuration);
+        configuration.description = description;
+        configuration.satisfiedReferences = NO_SATISFIED_REFERENCES;
+        configuration.unsatisfiedReferences = NO_UNSATISFIED_REFERENCES;
+    }
+
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.provider.ScrGraphAggregatorProvider.PID;
+import static java.lang.Runtime.getRuntime;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.osgi.framework.Constants.FRAMEWORK_UUID;
+import static org.osgi.framework.Constants.SERVICE_ID;
+import static org.osgi.service.component.annotations.ReferenceCardinality.MULTIPLE;
+import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.util.Pair;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraphAggregator;
+
+@Component(configurationPid = PID)
+public final class ScrGraphAggregatorProvider implements ScrGraphAggregator {
+
+    public static final String PID = "in.bytehue.osgi.scr.graph.aggregator";
+
+    @interface Config {
+        /**
+         * Includes the plain services and the unsatisfied references of every
+         * runtime in the aggregated graph
+         */
+        boolean fullFidelity() default false;
+
+        /**
+         * The maximum number of runtimes to query concurrently ({@code 0} to
+         * use the number of available processors)
+         */
+        int parallelism() default 0;
+    }
+
+    /**
+     * A registered runtime and its namespace
+     */
+    private static final class RegisteredRuntime {
+
+        final ServiceComponentRuntime scr;
+        final String namespace;
+
+        RegisteredRuntime(final ServiceComponentRuntime scr, final String namespace) {
+            this.scr = scr;
+            this.namespace = namespace;
+        }
+    }
+
+    private final Map<Long, RegisteredRuntime> runtimes = new ConcurrentSkipListMap<>();
+
+    private boolean fullFidelity;
+    private ForkJoinPool pool;
+
+    @Activate
+    void activate(final Config config) {
+        fullFidelity = config.fullFidelity();
+        final int parallelism = config.parallelism();
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : getRuntime().availableProcessors());
+    }
+
+    @Deactivate
+    void deactivate() {
+        pool.shutdownNow();
+    }
+
+    @Reference(cardinality = MULTIPLE, policy = DYNAMIC)
+    void bindRuntime(final ServiceComponentRuntime scr, final Map<String, Object> properties) {
+        final long serviceId = ((Number) properties.get(SERVICE_ID)).longValue();
+        runtimes.put(serviceId, new RegisteredRuntime(scr, getNamespace(serviceId, properties)));
+    }
+
+    void unbindRuntime(final ServiceComponentRuntime scr, final Map<String, Object> properties) {
+        runtimes.remove(((Number) properties.get(SERVICE_ID)).longValue());
+    }
+
+    @Override
+    public List<String> getNamespaces() {
+        return runtimes.values().stream().map(runtime -> runtime.namespace).collect(toList());
+    }
+
+    @Override
+    public Graph<ScrComponent, DefaultEdge> getAggregatedGraph() {
+        final Map<String, ServiceComponentRuntime> current = new LinkedHashMap<>();
+        for (final RegisteredRuntime runtime : runtimes.values()) {
+            current.put(runtime.namespace, runtime.scr);
+        }
+        return aggregate(current);
+    }
+
+    @Override
+    public Graph<ScrComponent, DefaultEdge> aggregate(final Map<String, ServiceComponentRuntime> runtimes) {
+        requireNonNull(runtimes, "'runtimes' cannot be null");
+
+        // the descriptions of the same bundles in different runtimes share their strings
+        final Map<String, String> strings = new ConcurrentHashMap<>();
+        final UnaryOperator<String> interner = value -> {
+            if (value == null) {
+                return null;
+            }
+            final String existing = strings.putIfAbsent(value, value);
+            return existing == null ? value : existing;
+        };
+        final List<ForkJoinTask<Pair<List<ScrComponent>, List<Pair<ScrComponent, ScrComponent>>>>> tasks = //
+                new ArrayList<>(runtimes.size());
+        for (final Map.Entry<String, ServiceComponentRuntime> entry : runtimes.entrySet()) {
+            final ScrGraphCollector collector = new ScrGraphCollector( //
+                    entry.getValue(), //
+                    fullFidelity, //
+                    null, //
+                    requireNonNull(entry.getKey(), "'namespace' cannot be null"), //
+                    interner);
+            tasks.add(pool.submit(() -> {
+                final List<ScrComponent> components = new ArrayList<>();
+                final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
+                collector.collect(null, components, edges);
+                return Pair.of(components, edges);
+            }));
+        }
+        // the runtimes are merged in their order such that the result is deterministic
+        final Graph<ScrComponent, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (final ForkJoinTask<Pair<List<ScrComponent>, List<Pair<ScrComponent, ScrComponent>>>> task : tasks) {
+            final Pair<List<ScrComponent>, List<Pair<ScrComponent, ScrComponent>>> result = ScrGraphCollector.join(task);
+            result.getFirst().forEach(graph::addVertex);
+            result.getSecond().forEach(edge -> ScrGraphHelper.addEdge(graph, edge));
+        }
+        return graph;
+    }
+
+    private static String getNamespace(final long serviceId, final Map<String, Object> properties) {
+        final Object namespace = properties.get(NAMESPACE_PROPERTY);
+        if (namespace != null) {
+            return namespace.toString();
+        }
+        final Object uuid = properties.get(FRAMEWORK_UUID);
+        if (uuid != null) {
+            return uuid.toString();
+        }
+        return "scr-" + serviceId;
+    }
+
+}
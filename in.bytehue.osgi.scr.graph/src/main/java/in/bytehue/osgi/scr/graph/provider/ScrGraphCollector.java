@@ -0,0 +1,547 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.provider.ScrComponentIndex.COMPONENT_NAME;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.osgi.framework.Constants.OBJECTCLASS;
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.ACTIVE;
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.FAILED_ACTIVATION;
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.SATISFIED;
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.UNSATISFIED_REFERENCE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.util.Pair;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+import org.osgi.service.component.runtime.dto.ReferenceDTO;
+import org.osgi.service.component.runtime.dto.SatisfiedReferenceDTO;
+import org.osgi.service.component.runtime.dto.UnsatisfiedReferenceDTO;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrComponentType;
+import in.bytehue.osgi.scr.graph.api.ScrReferenceEdge;
+import in.bytehue.osgi.scr.graph.provider.ScrGraphMetrics.Operation;
+
+/**
+ * Collects the components and their dependencies from a single
+ * {@link ServiceComponentRuntime}.
+ */
+public final class ScrGraphCollector {
+
+    private final ServiceComponentRuntime scr;
+    private final boolean fullFidelity;
+    private final ForkJoinPool collectionPool;
+    private final String namespace;
+    private final UnaryOperator<String> interner;
+    private ScrDescriptionPool descriptionPool;
+    private ScrGraphMetrics metrics;
+    private BooleanSupplier stopCondition;
+    private volatile boolean truncated;
+
+    /**
+     * Creates a collector
+     *
+     * @param scr the runtime to collect from
+     * @param fullFidelity whether to collect the full-fidelity graph
+     * @param collectionPool the pool to query the configurations in parallel or
+     *            {@code null} to query them sequentially
+     * @param namespace the namespace of the collected vertices or {@code null}
+     */
+    public ScrGraphCollector( //
+            final ServiceComponentRuntime scr, //
+            final boolean fullFidelity, //
+            final ForkJoinPool collectionPool, //
+            final String namespace) {
+
+        this(scr, fullFidelity, collectionPool, namespace, null);
+    }
+
+    /**
+     * Creates a collector that canonicalizes the strings of the collected
+     * descriptions using the specified interner
+     */
+    public ScrGraphCollector( //
+            final ServiceComponentRuntime scr, //
+            final boolean fullFidelity, //
+            final ForkJoinPool collectionPool, //
+            final String namespace, //
+            final UnaryOperator<String> interner) {
+
+        this.scr = requireNonNull(scr, "'scr' cannot be null");
+        this.fullFidelity = fullFidelity;
+        this.collectionPool = collectionPool;
+        this.namespace = namespace;
+        this.interner = interner;
+    }
+
+    /**
+     * Sets the pool of the lightweight descriptions. If set, the collected
+     * component vertices are compacted once the edges have been resolved.
+     *
+     * @param descriptionPool the pool to share the descriptions from
+     * @return this collector
+     */
+    public ScrGraphCollector withDescriptionPool(final ScrDescriptionPool descriptionPool) {
+        this.descriptionPool = requireNonNull(descriptionPool, "'descriptionPool' cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the metrics to record the latencies of the collection and the
+     * edge resolution to
+     *
+     * @param metrics the metrics to record to
+     * @return this collector
+     */
+    public ScrGraphCollector withMetrics(final ScrGraphMetrics metrics) {
+        this.metrics = requireNonNull(metrics, "'metrics' cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the condition to stop querying the runtime. It is checked before
+     * the configurations of every description are queried. The edges between
+     * the components that have been collected until then are still resolved.
+     *
+     * @param stopCondition the condition to stop the collection
+     * @return this collector
+     *
+     * @see #isTruncated()
+     */
+    public ScrGraphCollector withStopCondition(final BooleanSupplier stopCondition) {
+        this.stopCondition = requireNonNull(stopCondition, "'stopCondition' cannot be null");
+        return this;
+    }
+
+    /**
+     * Returns whether the collection has been stopped before all the
+     * descriptions have been queried
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Collects the components and the edges between them
+     *
+     * @param filter the filter to apply or {@code null} to collect all the
+     *            components
+     * @param components the list to add the components to
+     * @param edges the list to add the edges to
+     */
+    public void collect( //
+            final ScrComponentFilter filter, //
+            final List<ScrComponent> components, //
+            final List<Pair<ScrComponent, ScrComponent>> edges) {
+
+        long start = metrics == null ? 0 : metrics.start();
+        prepareComponents(filter, components);
+        if (metrics != null) {
+            metrics.record(Operation.COLLECTION, start);
+            start = metrics.start();
+        }
+        prepareEdges(components, edges);
+        if (metrics != null) {
+            metrics.record(Operation.EDGE_RESOLUTION, start);
+        }
+
+        if (descriptionPool != null) {
+            // the edges have been resolved and hence the references are no longer required
+            descriptionPool.compact(components, filter == null && !truncated);
+        }
+    }
+
+    /**
+     * Collects the components of the specified descriptions and the edges
+     * from them. A bound service which has not been registered by any of the
+     * collected components is resolved using the specified resolver, e.g.
+     * against the other components of a graph that is updated incrementally.
+     *
+     * @param descriptions the descriptions to collect the components of
+     * @param resolver the resolver of the services of the other components
+     * @param services the service vertices of the full-fidelity mode by their
+     *            service identifiers which are shared with the other
+     *            components (the new ones are added to it and to the
+     *            components)
+     * @param complete {@code true} if the descriptions comprise all the
+     *            descriptions of the runtime
+     * @param components the list to add the components to
+     * @param edges the list to add the edges to
+     */
+    public void collect( //
+            final Collection<ComponentDescriptionDTO> descriptions, //
+            final Function<ServiceReferenceDTO, ScrComponent> resolver, //
+            final Map<Long, ScrComponent> services, //
+            final boolean complete, //
+            final List<ScrComponent> components, //
+            final List<Pair<ScrComponent, ScrComponent>> edges) {
+
+        long start = metrics == null ? 0 : metrics.start();
+        for (final ComponentDescriptionDTO desc : descriptions) {
+            prepareComponents(null, desc, components);
+        }
+        if (metrics != null) {
+            metrics.record(Operation.COLLECTION, start);
+            start = metrics.start();
+        }
+        final ScrComponentIndex index = ScrComponentIndex.of(components);
+        prepareEdges(service -> {
+            final ScrComponent component = index.resolve(service);
+            return component != null ? component : resolver.apply(service);
+        }, fullFidelity ? services : null, components, edges);
+        if (metrics != null) {
+            metrics.record(Operation.EDGE_RESOLUTION, start);
+        }
+
+        if (descriptionPool != null) {
+            descriptionPool.compact(components, complete);
+        }
+    }
+
+    private void prepareComponents(final ScrComponentFilter filter, final List<ScrComponent> components) {
+        final Collection<ComponentDescriptionDTO> descriptions = scr.getComponentDescriptionDTOs();
+        if (collectionPool != null) {
+            prepareComponentsInParallel(filter, descriptions, components);
+            return;
+        }
+        for (final ComponentDescriptionDTO desc : descriptions) {
+            prepareComponents(filter, desc, components);
+        }
+    }
+
+    private void prepareComponents( //
+            final ScrComponentFilter filter, //
+            final ComponentDescriptionDTO desc, //
+            final List<ScrComponent> components) {
+
+        // the configurations of excluded descriptions are not even queried
+        if (filter != null && !filter.matches(desc)) {
+            return;
+        }
+        if (truncated || stopCondition != null && stopCondition.getAsBoolean()) {
+            truncated = true;
+            return;
+        }
+        if (interner != null) {
+            intern(desc);
+        }
+        if (descriptionPool != null) {
+            ScrDescriptionPool.strip(desc);
+        }
+        for (final ComponentConfigurationDTO configurationDTO : scr.getComponentConfigurationDTOs(desc)) {
+            if (isIncluded(filter, configurationDTO.state)) {
+                if (descriptionPool != null) {
+                    // everything that is not required to wire the graph is dropped right away
+                    ScrDescriptionPool.strip(configurationDTO);
+                }
+                final ScrComponent component = createComponent(desc, configurationDTO);
+                component.namespace = namespace;
+                components.add(component);
+            }
+        }
+    }
+
+    private void prepareComponentsInParallel( //
+            final ScrComponentFilter filter, //
+            final Collection<ComponentDescriptionDTO> descriptions, //
+            final List<ScrComponent> components) {
+
+        // the ordered stream merges the results in the order of the descriptions
+        final ForkJoinTask<List<List<ScrComponent>>> task = collectionPool.submit(() -> descriptions.parallelStream() //
+                .map(desc -> {
+                    final List<ScrComponent> configurations = new ArrayList<>(1);
+                    prepareComponents(filter, desc, configurations);
+                    return configurations;
+                }) //
+                .collect(toList()));
+        join(task).forEach(components::addAll);
+    }
+
+    /**
+     * Waits for the specified collection task and rethrows its failure
+     *
+     * @param task the task to wait for
+     *
+     * @return the result of the task
+     */
+    static <T> T join(final ForkJoinTask<T> task) {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while collecting the SCR components", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Cannot collect the SCR components", cause);
+        }
+    }
+
+    private boolean isIncluded(final ScrComponentFilter filter, final int state) {
+        if (filter != null && filter.hasStates()) {
+            return filter.matches(state);
+        }
+        if (state == SATISFIED || state == ACTIVE) {
+            return true;
+        }
+        return fullFidelity && (state == UNSATISFIED_REFERENCE || state == FAILED_ACTIVATION);
+    }
+
+    private void prepareEdges( //
+            final List<ScrComponent> components, //
+            final List<Pair<ScrComponent, ScrComponent>> edges) {
+
+        final ScrComponentIndex index = ScrComponentIndex.of(components);
+        prepareEdges(index::resolve, fullFidelity ? new HashMap<>() : null, components, edges);
+    }
+
+    private void prepareEdges( //
+            final Function<ServiceReferenceDTO, ScrComponent> index, //
+            final Map<Long, ScrComponent> services, //
+            final List<ScrComponent> components, //
+            final List<Pair<ScrComponent, ScrComponent>> edges) {
+
+        // the synthesized vertices are appended to the components and must not be visited
+        final int size = components.size();
+        for (int i = 0; i < size; i++) {
+            final ScrComponent component = components.get(i);
+            final ComponentConfigurationDTO dto = component.configuration;
+            final SatisfiedReferenceDTO[] references = dto.satisfiedReferences;
+
+            for (final SatisfiedReferenceDTO refDTO : references) {
+                final ReferenceDTO reference = findReference(component.description, refDTO.name);
+                for (final ServiceReferenceDTO srvRefDTO : refDTO.boundServices) {
+                    final ScrComponent endComponent = resolve(srvRefDTO, index, services, components);
+                    if (endComponent != null) {
+                        edges.add(createDependency(component, endComponent, reference, refDTO.target));
+                    }
+                }
+            }
+            if (fullFidelity && dto.unsatisfiedReferences != null) {
+                prepareUnsatisfiedReferences(component, index, services, components, edges);
+            }
+        }
+    }
+
+    private void prepareUnsatisfiedReferences( //
+            final ScrComponent component, //
+            final Function<ServiceReferenceDTO, ScrComponent> index, //
+            final Map<Long, ScrComponent> services, //
+            final List<ScrComponent> components, //
+            final List<Pair<ScrComponent, ScrComponent>> edges) {
+
+        final UnsatisfiedReferenceDTO[] references = component.configuration.unsatisfiedReferences;
+        for (int i = 0; i < references.length; i++) {
+            final ReferenceDTO referenceDTO = findReference(component.description, references[i].name);
+            final ScrComponent reference = createUnsatisfiedReference(component, referenceDTO, references[i], i);
+            components.add(reference);
+            edges.add(createDependency(component, reference, referenceDTO, references[i].target));
+
+            // the services that match the target but are not sufficient to satisfy the reference
+            final ServiceReferenceDTO[] targetServices = references[i].targetServices;
+            if (targetServices == null) {
+                continue;
+            }
+            for (final ServiceReferenceDTO srvRefDTO : targetServices) {
+                final ScrComponent endComponent = resolve(srvRefDTO, index, services, components);
+                if (endComponent != null) {
+                    edges.add(createDependency(reference, endComponent, referenceDTO, references[i].target));
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the component that has registered the specified service. In
+     * the full-fidelity mode, a service that has not been registered by any of
+     * the components is resolved to a (shared) service vertex.
+     */
+    private ScrComponent resolve( //
+            final ServiceReferenceDTO service, //
+            final Function<ServiceReferenceDTO, ScrComponent> index, //
+            final Map<Long, ScrComponent> services, //
+            final List<ScrComponent> components) {
+
+        final ScrComponent component = index.apply(service);
+        // the services of the excluded components are not materialized either
+        if (component != null || services == null || service.properties.get(COMPONENT_NAME) != null) {
+            return component;
+        }
+        return services.computeIfAbsent(service.id, id -> {
+            final ScrComponent vertex = createService(service);
+            components.add(vertex);
+            return vertex;
+        });
+    }
+
+    public static Graph<ScrComponent, DefaultEdge> buildGraph( //
+            final List<ScrComponent> components, //
+            final List<Pair<ScrComponent, ScrComponent>> edges) {
+
+        final Graph<ScrComponent, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+
+        components.forEach(graph::addVertex);
+        edges.forEach(edge -> ScrGraphHelper.addEdge(graph, edge));
+
+        return graph;
+    }
+
+    public static ScrComponent createComponent( //
+            final ComponentDescriptionDTO description, //
+            final ComponentConfigurationDTO configuration) {
+
+        final ScrComponent component = new ScrComponent();
+
+        component.description = description;
+        component.configuration = configuration;
+
+        return component;
+    }
+
+    private ScrComponent createService(final ServiceReferenceDTO service) {
+        final ComponentDescriptionDTO description = new ComponentDescriptionDTO();
+
+        final Object objectClass = service.properties.get(OBJECTCLASS);
+        description.name = objectClass instanceof String[] ? String.join(", ", (String[]) objectClass)
+                : String.valueOf(objectClass);
+        description.bundle = new BundleDTO();
+        description.bundle.id = service.bundle;
+
+        final ScrComponent vertex = createSyntheticVertex(description, -service.id);
+
+        vertex.type = ScrComponentType.SERVICE;
+        vertex.service = service;
+
+        return vertex;
+    }
+
+    private ScrComponent createUnsatisfiedReference( //
+            final ScrComponent component, //
+            final ReferenceDTO referenceDTO, //
+            final UnsatisfiedReferenceDTO reference, //
+            final int position) {
+
+        final String interfaceName = referenceDTO == null ? reference.name : referenceDTO.interfaceName;
+        final ComponentDescriptionDTO description = new ComponentDescriptionDTO();
+
+        description.name = reference.target == null ? interfaceName : interfaceName + " " + reference.target;
+        description.bundle = component.description.bundle;
+
+        // negative identifiers below the range of the negated service identifiers
+        final long id = Long.MIN_VALUE + (component.configuration.id << 16) + position;
+        final ScrComponent vertex = createSyntheticVertex(description, id);
+
+        vertex.type = ScrComponentType.UNSATISFIED_REFERENCE;
+        vertex.reference = reference;
+
+        return vertex;
+    }
+
+    /**
+     * Creates the dependency between the specified vertices which carries the
+     * edge of the specified reference. The effective target filter of the
+     * configuration takes precedence over the one of the description.
+     */
+    private static Pair<ScrComponent, ScrComponent> createDependency( //
+            final ScrComponent source, //
+            final ScrComponent target, //
+            final ReferenceDTO reference, //
+            final String targetFilter) {
+
+        if (reference == null) {
+            return new Pair<>(source, target);
+        }
+        final ScrReferenceEdge edge = new ScrReferenceEdge( //
+                reference.name, //
+                reference.interfaceName, //
+                reference.cardinality, //
+                reference.policy, //
+                reference.policyOption, //
+                targetFilter != null ? targetFilter : reference.target);
+
+        return new ScrReferenceWire(source, target, edge);
+    }
+
+    private static ReferenceDTO findReference(final ComponentDescriptionDTO description, final String name) {
+        if (description.references == null) {
+            return null;
+        }
+        for (final ReferenceDTO reference : description.references) {
+            if (reference.name.equals(name)) {
+                return reference;
+            }
+        }
+        return null;
+    }
+
+    private ScrComponent createSyntheticVertex(final ComponentDescriptionDTO description, final long id) {
+        final ComponentConfigurationDTO configuration = new ComponentConfigurationDTO();
+
+        configuration.id = id;
+        configuration.description = description;
+        configuration.satisfiedReferences = new SatisfiedReferenceDTO[0];
+        configuration.unsatisfiedReferences = new UnsatisfiedReferenceDTO[0];
+
+        final ScrComponent vertex = createComponent(description, configuration);
+        vertex.namespace = namespace;
+        return vertex;
+    }
+
+    /**
+     * Replaces the strings of the specified description by their canonical
+     * instances such that the descriptions of the same component in different
+     * runtimes share them
+     */
+    private void intern(final ComponentDescriptionDTO description) {
+        description.name = interner.apply(description.name);
+        if (description.implementationClass != null) {
+            description.implementationClass = interner.apply(description.implementationClass);
+        }
+        if (description.serviceInterfaces != null) {
+            for (int i = 0; i < description.serviceInterfaces.length; i++) {
+                description.serviceInterfaces[i] = interner.apply(description.serviceInterfaces[i]);
+            }
+        }
+        if (description.references != null) {
+            for (final ReferenceDTO reference : description.references) {
+                reference.name = interner.apply(reference.name);
+                reference.interfaceName = interner.apply(reference.interfaceName);
+            }
+        }
+    }
+
+}
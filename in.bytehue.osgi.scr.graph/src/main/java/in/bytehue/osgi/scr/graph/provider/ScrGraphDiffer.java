@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff.Edge;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff.StateChange;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+/**
+ * Computes the differences between two snapshots in linear time.
+ *
+ * <p>
+ * The vertices and edges of the older snapshot are indexed in hash tables
+ * keyed by component name and configuration identifier which are then probed
+ * with the vertices and edges of the newer snapshot and vice versa. Hence,
+ * the graphs themselves are never compared.
+ */
+public final class ScrGraphDiffer {
+
+    private ScrGraphDiffer() {
+        throw new IllegalAccessError("Cannot be instantiated");
+    }
+
+    /**
+     * Identity of a component across snapshots
+     */
+    private static final class Key {
+
+        final String namespace;
+        final String name;
+        final long id;
+
+        Key(final ScrComponent component) {
+            namespace = component.namespace;
+            name = component.description.name;
+            id = component.configuration.id;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return id == other.id && name.equals(other.name) && Objects.equals(namespace, other.namespace);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(namespace, name, id);
+        }
+    }
+
+    /**
+     * Identity of a wire across snapshots
+     */
+    private static final class EdgeKey {
+
+        final Key source;
+        final Key target;
+
+        EdgeKey(final Key source, final Key target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof EdgeKey)) {
+                return false;
+            }
+            final EdgeKey other = (EdgeKey) obj;
+            return source.equals(other.source) && target.equals(other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + target.hashCode();
+        }
+    }
+
+    public static ScrGraphDiff diff(final ScrGraphSnapshot from, final ScrGraphSnapshot to) {
+        requireNonNull(from, "'from' cannot be null");
+        requireNonNull(to, "'to' cannot be null");
+
+        final Graph<ScrComponent, DefaultEdge> fromGraph = from.getGraph();
+        final Graph<ScrComponent, DefaultEdge> toGraph = to.getGraph();
+
+        final Map<Key, ScrComponent> fromVertices = indexVertices(fromGraph);
+        final Map<Key, ScrComponent> toVertices = indexVertices(toGraph);
+
+        final ScrGraphDiff diff = new ScrGraphDiff();
+
+        diff.fromChangeCount = from.getChangeCount();
+        diff.toChangeCount = to.getChangeCount();
+        diff.addedComponents = new ArrayList<>();
+        diff.removedComponents = new ArrayList<>();
+        diff.stateChanges = new ArrayList<>();
+
+        for (final Map.Entry<Key, ScrComponent> entry : toVertices.entrySet()) {
+            final ScrComponent component = entry.getValue();
+            final ScrComponent previous = fromVertices.get(entry.getKey());
+            if (previous == null) {
+                diff.addedComponents.add(component);
+            } else if (previous.configuration.state != component.configuration.state) {
+                final StateChange change = new StateChange();
+
+                change.component = component;
+                change.previousState = previous.configuration.state;
+                change.state = component.configuration.state;
+
+                diff.stateChanges.add(change);
+            }
+        }
+        for (final Map.Entry<Key, ScrComponent> entry : fromVertices.entrySet()) {
+            if (!toVertices.containsKey(entry.getKey())) {
+                diff.removedComponents.add(entry.getValue());
+            }
+        }
+
+        final Set<EdgeKey> fromEdges = indexEdges(fromGraph);
+        final Set<EdgeKey> toEdges = indexEdges(toGraph);
+
+        diff.addedEdges = collectMissingEdges(toGraph, fromEdges);
+        diff.removedEdges = collectMissingEdges(fromGraph, toEdges);
+
+        return diff;
+    }
+
+    private static Map<Key, ScrComponent> indexVertices(final Graph<ScrComponent, DefaultEdge> graph) {
+        final Set<ScrComponent> vertices = graph.vertexSet();
+        final Map<Key, ScrComponent> index = new HashMap<>(vertices.size() * 4 / 3 + 1);
+        for (final ScrComponent vertex : vertices) {
+            index.put(new Key(vertex), vertex);
+        }
+        return index;
+    }
+
+    private static Set<EdgeKey> indexEdges(final Graph<ScrComponent, DefaultEdge> graph) {
+        final Set<DefaultEdge> edges = graph.edgeSet();
+        final Set<EdgeKey> index = new HashSet<>(edges.size() * 4 / 3 + 1);
+        for (final DefaultEdge edge : edges) {
+            index.add(toKey(graph, edge));
+        }
+        return index;
+    }
+
+    private static List<Edge> collectMissingEdges( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final Set<EdgeKey> others) {
+
+        final List<Edge> missing = new ArrayList<>();
+        for (final DefaultEdge edge : graph.edgeSet()) {
+            if (!others.contains(toKey(graph, edge))) {
+                final Edge diffEdge = new Edge();
+
+                diffEdge.source = graph.getEdgeSource(edge);
+                diffEdge.target = graph.getEdgeTarget(edge);
+
+                missing.add(diffEdge);
+            }
+        }
+        return missing;
+    }
+
+    private static EdgeKey toKey(final Graph<ScrComponent, DefaultEdge> graph, final DefaultEdge edge) {
+        return new EdgeKey(new Key(graph.getEdgeSource(edge)), new Key(graph.getEdgeTarget(edge)));
+    }
+
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.createVertexLabelSuffix;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraphFormat;
+import in.bytehue.osgi.scr.graph.api.ScrReferenceEdge;
+
+/**
+ * Base class of the exporters that stream a graph directly to a
+ * {@link Writer}.
+ *
+ * <p>
+ * The exporters write every vertex and edge as soon as it is visited without
+ * creating any intermediate attribute map or document. The output is flushed
+ * after every {@value #FLUSH_INTERVAL} elements so that large graphs reach
+ * their destination incrementally.
+ *
+ * <p>
+ * If the activation times of the components are provided, the exporters add
+ * them as vertex attributes. The times are also normalized against the
+ * slowest component of the graph such that the exporters can render a heat
+ * map. Likewise, the metadata of the references is added as edge attributes
+ * if the edges carry it (see {@link ScrReferenceEdge}).
+ */
+public abstract class ScrGraphExporter {
+
+    private static final int FLUSH_INTERVAL = 1 << 10;
+
+    protected static final String NEW_LINE = System.lineSeparator();
+
+    private ToLongFunction<ScrComponent> activationTimes;
+    private long maxActivationTime;
+
+    public static ScrGraphExporter of(final ScrGraphFormat format) {
+        requireNonNull(format, "'format' cannot be null");
+        switch (format) {
+            case DOT:
+                return new DotGraphExporter();
+            case GRAPHML:
+                return new GraphMLGraphExporter();
+            case JSON:
+                return new JsonGraphExporter();
+            default:
+                throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+
+    /**
+     * Sets the function that returns the activation time of a component in
+     * nanoseconds or a negative value if it is unknown
+     *
+     * @param activationTimes the function to retrieve the activation times
+     * @return this exporter
+     */
+    public ScrGraphExporter withActivationTimes(final ToLongFunction<ScrComponent> activationTimes) {
+        this.activationTimes = requireNonNull(activationTimes, "'activationTimes' cannot be null");
+        return this;
+    }
+
+    /**
+     * Exports the specified graph. The writer is flushed but not closed.
+     *
+     * @param graph the graph to be exported
+     * @param writer the writer to which the graph to be exported
+     *
+     * @throws UncheckedIOException if the graph cannot be written
+     */
+    public void export(final Graph<ScrComponent, DefaultEdge> graph, final Writer writer) {
+        requireNonNull(graph, "'graph' cannot be null");
+        requireNonNull(writer, "'writer' cannot be null");
+
+        final Map<ScrComponent, Integer> ids = new HashMap<>();
+        int written = 0;
+        maxActivationTime = -1;
+        if (activationTimes != null) {
+            for (final ScrComponent vertex : graph.vertexSet()) {
+                maxActivationTime = Math.max(maxActivationTime, activationTimes.applyAsLong(vertex));
+            }
+        }
+        try {
+            writeHeader(graph, writer);
+            for (final ScrComponent vertex : graph.vertexSet()) {
+                final int id = ids.size() + 1;
+                ids.put(vertex, id);
+                writeVertex(id, vertex, id == 1, writer);
+                if (++written % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writeSeparator(writer);
+            boolean first = true;
+            for (final DefaultEdge edge : graph.edgeSet()) {
+                final int source = ids.get(graph.getEdgeSource(edge));
+                final int target = ids.get(graph.getEdgeTarget(edge));
+                writeEdge(source, target, edge, first, writer);
+                first = false;
+                if (++written % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writeFooter(writer);
+            writer.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if at least one vertex of the exported graph has a
+     * known activation time
+     */
+    protected final boolean hasActivationTimes() {
+        return maxActivationTime >= 0;
+    }
+
+    /**
+     * Returns the activation time of the specified vertex in nanoseconds or
+     * {@code -1} if it is unknown
+     */
+    protected final long getActivationTime(final ScrComponent vertex) {
+        if (!hasActivationTimes()) {
+            return -1;
+        }
+        final long time = activationTimes.applyAsLong(vertex);
+        return time < 0 ? -1 : time;
+    }
+
+    /**
+     * Returns the activation time of the specified vertex relative to the
+     * slowest vertex of the exported graph ({@code 0.0} to {@code 1.0}) or
+     * {@code -1} if it is unknown
+     */
+    protected final double getActivationHeat(final ScrComponent vertex) {
+        final long time = getActivationTime(vertex);
+        if (time < 0) {
+            return -1;
+        }
+        return maxActivationTime == 0 ? 0 : (double) time / maxActivationTime;
+    }
+
+    protected abstract void writeHeader(Graph<ScrComponent, DefaultEdge> graph, Writer writer) throws IOException;
+
+    protected abstract void writeVertex(int id, ScrComponent vertex, boolean first, Writer writer) throws IOException;
+
+    protected void writeSeparator(final Writer writer) throws IOException {
+        // nothing to write by default
+    }
+
+    /**
+     * Writes the specified edge. If it is a {@link ScrReferenceEdge}, the
+     * metadata of its reference can be written as edge attributes.
+     */
+    protected abstract void writeEdge(int source, int target, DefaultEdge edge, boolean first, Writer writer)
+            throws IOException;
+
+    protected abstract void writeFooter(Writer writer) throws IOException;
+
+    /**
+     * Writes the vertex label (see {@link ScrGraphHelper#createVertexLabel})
+     * escaping it on the fly
+     */
+    protected final void writeLabel(final ScrComponent vertex, final Writer writer) throws IOException {
+        if (vertex.namespace != null) {
+            writeEscaped(vertex.namespace, writer);
+            writer.write(':');
+        }
+        writeEscaped(vertex.description.name, writer);
+        writeEscaped(createVertexLabelSuffix(vertex), writer);
+    }
+
+    protected abstract void writeEscaped(String value, Writer writer) throws IOException;
+
+}
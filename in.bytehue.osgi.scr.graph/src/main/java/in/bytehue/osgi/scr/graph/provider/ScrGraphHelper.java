@@ -18,8 +18,14 @@ package in.bytehue.osgi.scr.graph.provider;
 import static java.util.Objects.requireNonNull;
 
 import java.util.List;
+import java.util.Objects;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.util.Pair;
+import org.jgrapht.graph.DefaultEdge;
 
 import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrReferenceEdge;
 
 public final class ScrGraphHelper {
 
@@ -81,7 +87,121 @@ public final class ScrGraphHelper {
     }
 
     public static String createVertexLabel(final ScrComponent component) {
-        return component.description.name + " [" + component.configuration.id + "]";
+        final String name = component.namespace == null ? component.description.name
+                : component.namespace + ":" + component.description.name;
+        return name + createVertexLabelSuffix(component);
+    }
+
+    /**
+     * Returns the part of the vertex label that follows the name
+     */
+    public static String createVertexLabelSuffix(final ScrComponent component) {
+        if (component.type == null) {
+            return " [" + component.configuration.id + "]";
+        }
+        switch (component.type) {
+            case SERVICE:
+                return " {service.id=" + -component.configuration.id + "}";
+            case UNSATISFIED_REFERENCE:
+                if (component.reference != null) {
+                    return " (unsatisfied reference '" + component.reference.name + "')";
+                }
+                return " (unsatisfied reference)";
+            case COMPONENT:
+            default:
+                return " [" + component.configuration.id + "]";
+        }
+    }
+
+    /**
+     * Adds the edge of the specified dependency to the graph. The edge of a
+     * blocking reference replaces an existing non-blocking edge between the
+     * same components.
+     */
+    public static void addEdge( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final Pair<ScrComponent, ScrComponent> dependency) {
+
+        addEdge(graph, dependency.getFirst(), dependency.getSecond(), createEdge(dependency));
+    }
+
+    /**
+     * Adds the specified edge to the graph unless a blocking edge already
+     * connects the same components
+     *
+     * @return the edge which connects the components afterwards
+     */
+    public static DefaultEdge addEdge( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final ScrComponent source, //
+            final ScrComponent target, //
+            final DefaultEdge edge) {
+
+        final DefaultEdge existing = graph.getEdge(source, target);
+        if (existing != null) {
+            if (isBlocking(existing) || !isBlocking(edge)) {
+                return existing;
+            }
+            graph.removeEdge(existing);
+        }
+        graph.addEdge(source, target, edge);
+        return edge;
+    }
+
+    /**
+     * Returns the edge carried by the specified dependency or a new plain
+     * edge if it does not carry any
+     */
+    public static DefaultEdge createEdge(final Pair<ScrComponent, ScrComponent> dependency) {
+        if (dependency instanceof ScrReferenceWire) {
+            return ((ScrReferenceWire) dependency).edge;
+        }
+        return new DefaultEdge();
+    }
+
+    /**
+     * Returns a new edge which carries the same reference as the specified
+     * edge. An edge cannot be connected to other vertices while it is shared
+     * with another graph.
+     */
+    public static DefaultEdge copyEdge(final DefaultEdge edge) {
+        if (!(edge instanceof ScrReferenceEdge)) {
+            return new DefaultEdge();
+        }
+        final ScrReferenceEdge reference = (ScrReferenceEdge) edge;
+        return new ScrReferenceEdge( //
+                reference.getName(), //
+                reference.getInterfaceName(), //
+                reference.getCardinality(), //
+                reference.getPolicy(), //
+                reference.getPolicyOption(), //
+                reference.getTarget());
+    }
+
+    /**
+     * Returns {@code true} if the specified edge is blocking. Plain edges do
+     * not carry the metadata of their reference and are conservatively
+     * considered to be blocking.
+     */
+    public static boolean isBlocking(final DefaultEdge edge) {
+        return !(edge instanceof ScrReferenceEdge) || ((ScrReferenceEdge) edge).isBlocking();
+    }
+
+    /**
+     * Returns {@code true} if both edges represent the same reference
+     */
+    public static boolean isSameReference(final DefaultEdge edge, final DefaultEdge other) {
+        if (!(edge instanceof ScrReferenceEdge) || !(other instanceof ScrReferenceEdge)) {
+            return !(edge instanceof ScrReferenceEdge) && !(other instanceof ScrReferenceEdge);
+        }
+        final ScrReferenceEdge reference = (ScrReferenceEdge) edge;
+        final ScrReferenceEdge otherReference = (ScrReferenceEdge) other;
+        return reference.getName().equals(otherReference.getName())
+                && Objects.equals(reference.getInterfaceName(), otherReference.getInterfaceName())
+                && Objects.equals(reference.getCardinality(), otherReference.getCardinality())
+                && Objects.equals(reference.getPolicy(), otherReference.getPolicy())
+                && Objects.equals(reference.getPolicyOption(), otherReference.getPolicyOption())
+                && Objects.equals(reference.getTarget(), otherReference.getTarget());
     }
 
 }
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.api.ScrGraphStatistics.COLLECTION;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphStatistics.CYCLE_SEARCH;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphStatistics.EDGE_RESOLUTION;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphStatistics.EXPORT;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphStatistics.GRAPH_BUILD;
+
+import java.util.ArrayList;
+
+import in.bytehue.osgi.scr.graph.api.ScrGraphStatistics;
+
+/**
+ * Records the latencies of the operations of the SCR graph as well as the
+ * sizes of the latest results.
+ *
+ * <p>
+ * An operation is measured by taking {@link #start()} before and passing it
+ * to the respective {@code record} method afterwards. A disabled instance
+ * does not even read the clock.
+ *
+ * @ThreadSafe
+ */
+public final class ScrGraphMetrics {
+
+    /**
+     * The measured operations
+     */
+    public enum Operation {
+        COLLECTION,
+        EDGE_RESOLUTION,
+        GRAPH_BUILD,
+        CYCLE_SEARCH,
+        EXPORT
+    }
+
+    private static final String[] NAMES = { COLLECTION, EDGE_RESOLUTION, GRAPH_BUILD, CYCLE_SEARCH, EXPORT };
+
+    private final boolean enabled;
+    private final LatencyHistogram[] histograms;
+
+    private volatile long vertexCount = -1;
+    private volatile long edgeCount = -1;
+    private volatile long cycleCount = -1;
+    private volatile long sccCount = -1;
+
+    public ScrGraphMetrics(final boolean enabled) {
+        this.enabled = enabled;
+
+        histograms = new LatencyHistogram[NAMES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns the start time of an operation to measure
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the latency of the specified operation
+     *
+     * @param operation the measured operation
+     * @param start the time returned by {@link #start()}
+     */
+    public void record(final Operation operation, final long start) {
+        if (enabled) {
+            histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the size of a newly built snapshot
+     */
+    public void recordGraph(final long vertices, final long edges) {
+        vertexCount = vertices;
+        edgeCount = edges;
+    }
+
+    /**
+     * Records the number of simple cycles found by an enumeration
+     */
+    public void recordCycles(final long cycles) {
+        cycleCount = cycles;
+    }
+
+    /**
+     * Records the number of cyclic strongly connected components
+     */
+    public void recordStronglyConnectedComponents(final long sccs) {
+        sccCount = sccs;
+    }
+
+    public ScrGraphStatistics getStatistics() {
+        final ScrGraphStatistics statistics = new ScrGraphStatistics();
+
+        statistics.operations = new ArrayList<>(histograms.length);
+        for (int i = 0; i < histograms.length; i++) {
+            statistics.operations.add(histograms[i].toStatistics(NAMES[i]));
+        }
+        statistics.vertexCount = vertexCount;
+        statistics.edgeCount = edgeCount;
+        statistics.cycleCount = cycleCount;
+        statistics.stronglyConnectedComponentCount = sccCount;
+
+        return statistics;
+    }
+
+}
@@ -15,170 +15,817 @@
  ******************************************************************************/
 package in.bytehue.osgi.scr.graph.provider;
 
-import static in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.createVertexLabel;
-import static java.util.stream.Collectors.toList;
-import static org.jgrapht.nio.DefaultAttribute.createAttribute;
-import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.ACTIVE;
-import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.SATISFIED;
-
+import static in.bytehue.osgi.scr.graph.api.ScrGraphFormat.DOT;
+import static in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.isBlocking;
+import static in.bytehue.osgi.scr.graph.provider.ScrGraphProvider.PID;
+import static java.lang.Runtime.getRuntime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static org.osgi.framework.Constants.SERVICE_CHANGECOUNT;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.jgrapht.Graph;
-import org.jgrapht.alg.cycle.TarjanSimpleCycles;
+import org.jgrapht.Graphs;
 import org.jgrapht.alg.util.Pair;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.nio.Attribute;
-import org.jgrapht.nio.dot.DOTExporter;
-import org.osgi.framework.dto.ServiceReferenceDTO;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.runtime.ServiceComponentRuntime;
 import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
 import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
-import org.osgi.service.component.runtime.dto.SatisfiedReferenceDTO;
 
+import in.bytehue.osgi.scr.graph.api.CompactScrGraph;
+import in.bytehue.osgi.scr.graph.api.ScrActivationTiming;
 import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrComponentType;
 import in.bytehue.osgi.scr.graph.api.ScrGraph;
+import in.bytehue.osgi.scr.graph.api.ScrGraphDiff;
+import in.bytehue.osgi.scr.graph.api.ScrGraphFilter;
+import in.bytehue.osgi.scr.graph.api.ScrGraphFormat;
+import in.bytehue.osgi.scr.graph.api.ScrGraphResult;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+import in.bytehue.osgi.scr.graph.api.ScrGraphStatistics;
+import in.bytehue.osgi.scr.graph.api.ScrStartupAnalysis;
+import in.bytehue.osgi.scr.graph.provider.ActivationRingBuffer.Sample;
+import in.bytehue.osgi.scr.graph.provider.ScrCycleIndex.Algorithm;
 import in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.CircularLinkedList;
 import in.bytehue.osgi.scr.graph.provider.ScrGraphHelper.CircularLinkedList.Node;
+import in.bytehue.osgi.scr.graph.provider.ScrGraphMetrics.Operation;
 
-@Component
+@Component(configurationPid = PID)
 public final class ScrGraphProvider implements ScrGraph {
 
+    public static final String PID = "in.bytehue.osgi.scr.graph";
+
+    @interface Config {
+        /**
+         * Keeps a single graph that is updated on SCR changes instead of
+         * building a new graph on every invocation
+         */
+        boolean live() default false;
+
+        /**
+         * Queries the configurations of the component descriptions from the
+         * runtime concurrently
+         */
+        boolean parallelCollection() default false;
+
+        /**
+         * The maximum number of threads to use for the parallel collection and
+         * the parallel cycle search ({@code 0} to use the number of available
+         * processors)
+         */
+        int parallelism() default 0;
+
+        /**
+         * Enumerates the simple cycles of the strongly connected components
+         * concurrently
+         */
+        boolean parallelCycleSearch() default true;
+
+        /**
+         * The algorithm to enumerate the simple cycles (TARJAN, JOHNSON,
+         * HAWICK_JAMES, TIERNAN or SZWARCFITER_LAUER)
+         */
+        Algorithm cycleAlgorithm() default Algorithm.TARJAN;
+
+        /**
+         * Measures the activation times of the component configurations
+         */
+        boolean activationTracking() default false;
+
+        /**
+         * The maximum number of retained activation samples
+         */
+        int activationSamples() default 4096;
+
+        /**
+         * The delay in milliseconds after an SCR change until the runtime is
+         * polled for the activation progress
+         */
+        long activationPollInterval() default 100;
+
+        /**
+         * The maximum size in bytes of the snapshot store in the bundle data
+         * area ({@code 0} to disable the store)
+         */
+        long snapshotStoreCapacity() default 16 * 1024 * 1024;
+
+        /**
+         * Includes the services that are not registered by DS components, the
+         * unsatisfied references and the configurations with unsatisfied
+         * references or failed activations in the graph
+         */
+        boolean fullFidelity() default false;
+
+        /**
+         * Only retains the identity of the configurations in the vertices and
+         * shares a stripped description per component. The complete DTOs can
+         * be fetched on demand.
+         */
+        boolean lightweight() default false;
+
+        /**
+         * Records the number of invocations and the latencies of the
+         * collection, the edge resolution, the graph build, the cycle search
+         * and the export
+         */
+        boolean metrics() default true;
+
+        /**
+         * The number of threads executing the asynchronous operations
+         */
+        int asyncThreads() default 2;
+
+        /**
+         * The maximum number of asynchronous operations waiting for a thread
+         * before further operations are rejected
+         */
+        int asyncQueueCapacity() default 16;
+    }
+
+    private static final String SNAPSHOT_STORE_FILE = "snapshots.bin";
+
     @Reference
     private ServiceComponentRuntime scr;
 
+    @Reference(service = ServiceComponentRuntime.class)
+    private ServiceReference<ServiceComponentRuntime> scrReference;
+
+    private ScrCycleIndex cycleIndex = new ScrCycleIndex();
+    private ScrCycleIndex blockingCycleIndex = new ScrCycleIndex();
+
+    private BundleContext bundleContext;
+    private LiveScrGraph liveGraph;
+    private ForkJoinPool forkJoinPool;
+    private ForkJoinPool collectionPool;
+    private ActivationTracker activationTracker;
+    private ScrSnapshotStore snapshotStore;
+    private boolean fullFidelity;
+    private ScrDescriptionPool descriptionPool;
+    private ScrGraphMetrics metrics = new ScrGraphMetrics(false);
+    private ExecutorService asyncExecutor;
+    private final Set<CompletableFuture<?>> pendingOperations = ConcurrentHashMap.newKeySet();
+    private ServiceListener serviceListener;
+    private final AtomicLong serviceChanges = new AtomicLong();
+    private volatile ScrGraphSnapshot snapshot;
+    private Graph<ScrComponent, DefaultEdge> snapshotSource;
+    private ScrGraphSnapshot blockingSource;
+    private ScrGraphSnapshot blockingSnapshot;
+    private ScrGraphSnapshot compactSource;
+    private CompactScrGraph compactGraph;
+    private volatile ScrReachabilityIndex reachabilityIndex;
+
+    @Activate
+    void activate(final BundleContext bundleContext, final Config config) {
+        this.bundleContext = bundleContext;
+        fullFidelity = config.fullFidelity();
+        metrics = new ScrGraphMetrics(config.metrics());
+        asyncExecutor = createAsyncExecutor(config.asyncThreads(), config.asyncQueueCapacity());
+        if (config.lightweight()) {
+            descriptionPool = new ScrDescriptionPool();
+        }
+        if (fullFidelity) {
+            // plain services do not alter the SCR change count
+            serviceListener = e -> serviceChanges.incrementAndGet();
+            bundleContext.addServiceListener(serviceListener);
+        }
+        if (config.parallelCollection() || config.parallelCycleSearch()) {
+            final int parallelism = config.parallelism();
+            forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : getRuntime().availableProcessors());
+        }
+        if (config.parallelCollection()) {
+            collectionPool = forkJoinPool;
+        }
+        final ForkJoinPool cyclePool = config.parallelCycleSearch() ? forkJoinPool : null;
+        cycleIndex = new ScrCycleIndex(config.cycleAlgorithm(), cyclePool);
+        blockingCycleIndex = new ScrCycleIndex(config.cycleAlgorithm(), cyclePool);
+        if (config.live()) {
+            liveGraph = new LiveScrGraph(bundleContext, scr, this::createCollector, fullFidelity);
+            liveGraph.open();
+        }
+        if (config.activationTracking()) {
+            activationTracker = new ActivationTracker( //
+                    bundleContext, //
+                    scr, //
+                    config.activationSamples(), //
+                    config.activationPollInterval());
+            activationTracker.open();
+        }
+        final File storeFile = bundleContext.getDataFile(SNAPSHOT_STORE_FILE);
+        if (config.snapshotStoreCapacity() > 0 && storeFile != null) {
+            snapshotStore = ScrSnapshotStore.open(storeFile.toPath(), config.snapshotStoreCapacity());
+        }
+    }
+
+    @Deactivate
+    void deactivate() {
+        if (serviceListener != null) {
+            bundleContext.removeServiceListener(serviceListener);
+        }
+        if (liveGraph != null) {
+            liveGraph.close();
+        }
+        asyncExecutor.shutdownNow();
+        // the operations dropped from the queue would otherwise never complete
+        pendingOperations.forEach(future -> future.cancel(false));
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdownNow();
+        }
+        if (activationTracker != null) {
+            activationTracker.close();
+        }
+        if (snapshotStore != null) {
+            snapshotStore.close();
+        }
+    }
+
     @Override
     public Graph<ScrComponent, DefaultEdge> getGraph() {
+        // not served from the snapshot as SCR might publish the change count with a delay
+        return createGraph();
+    }
+
+    @Override
+    public Graph<ScrComponent, DefaultEdge> getGraph(final ScrGraphFilter filter) {
+        final ScrComponentFilter componentFilter = ScrComponentFilter.of(filter);
+
         final List<ScrComponent> components = new ArrayList<>();
         final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
 
-        prepareComponents(components);
-        prepareEdges(components, edges);
+        prepare(componentFilter, components, edges);
 
         return buildGraph(components, edges);
     }
 
+    @Override
+    public CompletionStage<ScrGraphResult<Graph<ScrComponent, DefaultEdge>>> getGraphAsync( //
+            final ScrGraphFilter filter, //
+            final Duration deadline) {
+
+        final ScrComponentFilter componentFilter = filter == null ? null : ScrComponentFilter.of(filter);
+        return submit(deadline, stopCondition -> {
+            final ScrGraphResult<Graph<ScrComponent, DefaultEdge>> result = collect(componentFilter, stopCondition);
+            if (componentFilter == null) {
+                // the unfiltered graph is shared with the live graph or the cached snapshot
+                final Graph<ScrComponent, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+                Graphs.addGraph(graph, result.value);
+                result.value = graph;
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public CompletionStage<ScrGraphResult<List<List<ScrComponent>>>> getCyclesAsync(final Duration deadline) {
+        return submit(deadline, stopCondition -> {
+            final ScrGraphResult<Graph<ScrComponent, DefaultEdge>> graph = collect(null, stopCondition);
+
+            final long start = metrics.start();
+            final BoundedCycleIterator iterator = new BoundedCycleIterator(graph.value, 0, 0, null, stopCondition);
+            final List<List<ScrComponent>> cycles = new ArrayList<>();
+            iterator.forEachRemaining(cycles::add);
+            metrics.record(Operation.CYCLE_SEARCH, start);
+
+            final ScrGraphResult<List<List<ScrComponent>>> result = new ScrGraphResult<>();
+            result.value = cycles;
+            result.truncated = graph.truncated || iterator.isTruncated();
+            if (!result.truncated) {
+                metrics.recordCycles(cycles.size());
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public ScrGraphSnapshot getSnapshot() {
+        if (liveGraph != null) {
+            return getLiveSnapshot();
+        }
+        final long changeCount = getChangeCount();
+        ScrGraphSnapshot current = snapshot;
+        if (isUpToDate(current, changeCount)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (!isUpToDate(current, changeCount)) {
+                final Graph<ScrComponent, DefaultEdge> graph = createGraph();
+                metrics.recordGraph(graph.vertexSet().size(), graph.edgeSet().size());
+                current = new ImmutableScrGraphSnapshot(changeCount, graph);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    @Override
+    public ScrComponent getFullComponent(final ScrComponent component) {
+        requireNonNull(component, "'component' cannot be null");
+        if (component.namespace != null) {
+            return null;
+        }
+        if (component.type != null && component.type != ScrComponentType.COMPONENT) {
+            return component;
+        }
+        return loadComponent( //
+                component.description.bundle.id, //
+                component.description.name, //
+                component.configuration.id);
+    }
+
+    @Override
+    public synchronized CompactScrGraph getCompactGraph() {
+        final ScrGraphSnapshot current = getSnapshot();
+        // the live snapshots might share the change count
+        if (compactGraph == null || compactSource != current) {
+            compactGraph = CsrScrGraph.of(current, this::loadComponent);
+            compactSource = current;
+        }
+        return compactGraph;
+    }
+
     @Override
     public List<List<ScrComponent>> getCycles() {
-        final Graph<ScrComponent, DefaultEdge> graph = getGraph();
-        final TarjanSimpleCycles<ScrComponent, DefaultEdge> tarjan = new TarjanSimpleCycles<>(graph);
+        final ScrGraphSnapshot current = getSnapshot();
+        final long start = metrics.start();
+        final List<List<ScrComponent>> cycles = cycleIndex.getCycles(current);
+        metrics.record(Operation.CYCLE_SEARCH, start);
+        metrics.recordCycles(cycles.size());
+        return cycles;
+    }
 
-        return tarjan.findSimpleCycles();
+    @Override
+    public List<List<ScrComponent>> getBlockingCycles() {
+        final ScrGraphSnapshot current = getSnapshot();
+        final long start = metrics.start();
+        final List<List<ScrComponent>> cycles = blockingCycleIndex.getCycles(getBlockingSnapshot(current));
+        metrics.record(Operation.CYCLE_SEARCH, start);
+        return cycles;
+    }
+
+    @Override
+    public Stream<List<ScrComponent>> streamCycles(final int maxCycles, final int maxLength, final Duration budget) {
+        final Graph<ScrComponent, DefaultEdge> graph = getSnapshot().getGraph();
+        final BoundedCycleIterator iterator = new BoundedCycleIterator(graph, maxCycles, maxLength, budget);
+
+        return StreamSupport.stream(spliteratorUnknownSize(iterator, ORDERED | NONNULL), false);
+    }
+
+    @Override
+    public ScrGraphResult<Integer> forEachCycle( //
+            final int maxCycles, //
+            final int maxLength, //
+            final Duration budget, //
+            final Consumer<? super List<ScrComponent>> action) {
+
+        requireNonNull(action, "'action' cannot be null");
+        if (maxCycles < 0) {
+            throw new IllegalArgumentException("'maxCycles' cannot be negative");
+        }
+        final Graph<ScrComponent, DefaultEdge> graph = getSnapshot().getGraph();
+        // the maximum number of cycles is applied here to be able to look for one more cycle
+        final BoundedCycleIterator iterator = new BoundedCycleIterator(graph, 0, maxLength, budget);
+
+        int count = 0;
+        while ((maxCycles == 0 || count < maxCycles) && iterator.hasNext()) {
+            action.accept(iterator.next());
+            count++;
+        }
+        final ScrGraphResult<Integer> result = new ScrGraphResult<>();
+        result.value = count;
+        result.truncated = iterator.isTruncated() || (maxCycles > 0 && count == maxCycles && iterator.hasNext());
+        return result;
     }
 
     @Override
     public Graph<ScrComponent, DefaultEdge> getCycleAsGraph(final List<ScrComponent> components) {
-        final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
+        final Graph<ScrComponent, DefaultEdge> graph = getSnapshot().getGraph();
+        final Graph<ScrComponent, DefaultEdge> cycleAsGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
         Node<ScrComponent> node = CircularLinkedList.create(components);
 
+        components.forEach(cycleAsGraph::addVertex);
         for (int i = 0; i < components.size(); i++) {
             node = node.getNext();
-            final Pair<ScrComponent, ScrComponent> pair = new Pair<>(node.getData(), node.getNext().getData());
-            edges.add(pair);
+            final ScrComponent source = node.getData();
+            final ScrComponent target = node.getNext().getData();
+            // the edges of the graph carry the metadata of their references
+            final DefaultEdge edge = graph.containsVertex(source) && graph.containsVertex(target)
+                    ? graph.getEdge(source, target)
+                    : null;
+            cycleAsGraph.addEdge(source, target, edge == null ? new DefaultEdge() : edge);
         }
-        return buildGraph(components, edges);
+        return cycleAsGraph;
     }
 
     @Override
-    public Graph<ScrComponent, DefaultEdge> getCyclesAsGraph() {
-        final List<List<ScrComponent>> cycles = getCycles();
-        final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
+    public List<List<ScrComponent>> getStronglyConnectedComponents() {
+        return getStronglyConnectedComponents(getSnapshot());
+    }
 
-        for (final List<ScrComponent> group : cycles) {
-            Node<ScrComponent> node = CircularLinkedList.create(group);
-            for (int i = 0; i < group.size(); i++) {
-                node = node.getNext();
-                final Pair<ScrComponent, ScrComponent> pair = new Pair<>(node.getData(), node.getNext().getData());
-                edges.add(pair);
+    @Override
+    public Graph<ScrComponent, DefaultEdge> getCyclesAsGraph() {
+        final ScrGraphSnapshot current = getSnapshot();
+        final Graph<ScrComponent, DefaultEdge> graph = current.getGraph();
+        final Graph<ScrComponent, DefaultEdge> cyclesAsGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+
+        final Set<ScrComponent> scc = new HashSet<>();
+
+        for (final List<ScrComponent> members : getStronglyConnectedComponents(current)) {
+            scc.clear();
+            scc.addAll(members);
+            for (final ScrComponent source : members) {
+                cyclesAsGraph.addVertex(source);
+                for (final DefaultEdge edge : graph.outgoingEdgesOf(source)) {
+                    final ScrComponent target = graph.getEdgeTarget(edge);
+                    // an edge lies on a simple cycle iff both ends belong to the same SCC
+                    if (scc.contains(target)) {
+                        cyclesAsGraph.addVertex(target);
+                        cyclesAsGraph.addEdge(source, target, edge);
+                    }
+                }
             }
         }
-        return buildGraph(cycles.stream().flatMap(List::stream).collect(toList()), edges);
+        return cyclesAsGraph;
+    }
+
+    @Override
+    public List<ScrComponent> getDependencies(final long configurationId, final int maxDepth) {
+        return getReachabilityIndex().getReachable(configurationId, maxDepth, false);
+    }
+
+    @Override
+    public List<ScrComponent> getDependents(final long configurationId, final int maxDepth) {
+        return getReachabilityIndex().getReachable(configurationId, maxDepth, true);
+    }
+
+    @Override
+    public List<ScrComponent> getShortestPath(final long fromConfigurationId, final long toConfigurationId) {
+        return getReachabilityIndex().getShortestPath(fromConfigurationId, toConfigurationId);
+    }
+
+    @Override
+    public ScrGraphDiff diff(final ScrGraphSnapshot from, final ScrGraphSnapshot to) {
+        return ScrGraphDiffer.diff(from, to);
+    }
+
+    @Override
+    public ScrGraphSnapshot storeSnapshot() {
+        if (snapshotStore == null) {
+            throw new IllegalStateException("The snapshot store is not available");
+        }
+        return snapshotStore.append(getSnapshot());
+    }
+
+    @Override
+    public List<ScrGraphSnapshot> getStoredSnapshots() {
+        if (snapshotStore == null) {
+            return Collections.emptyList();
+        }
+        return snapshotStore.getSnapshots();
+    }
+
+    @Override
+    public ScrGraphStatistics getStatistics() {
+        return metrics.getStatistics();
+    }
+
+    @Override
+    public List<ScrActivationTiming> getActivationTimings() {
+        if (activationTracker == null) {
+            return Collections.emptyList();
+        }
+        final List<ScrActivationTiming> timings = new ArrayList<>();
+        for (final Sample sample : activationTracker.getSamples().values()) {
+            final ScrActivationTiming timing = new ScrActivationTiming();
+
+            timing.name = sample.name;
+            timing.configurationId = sample.configurationId;
+            timing.activationNanos = sample.activationNanos;
+            timing.firstUseNanos = sample.firstUseNanos;
+
+            timings.add(timing);
+        }
+        return timings;
+    }
+
+    @Override
+    public ScrStartupAnalysis getStartupAnalysis() {
+        // not analysed in the snapshot as SCR might publish the change count with a delay
+        final Graph<ScrComponent, DefaultEdge> graph = getGraph();
+        final ToLongFunction<ScrComponent> activationTimes = getActivationTimes();
+        if (activationTimes == null) {
+            return StartupAnalyzer.analyze(graph, null);
+        }
+        // the unmeasured components do not contribute to the critical path
+        return StartupAnalyzer.analyze(graph, c -> Math.max(0, activationTimes.applyAsLong(c)));
     }
 
     @Override
     public void exportGraph(final Graph<ScrComponent, DefaultEdge> graph, final Writer writer) {
-        final DOTExporter<ScrComponent, DefaultEdge> exporter = new DOTExporter<>();
+        exportGraph(graph, writer, DOT);
+    }
 
-        exporter.setVertexAttributeProvider(v -> {
-            final Map<String, Attribute> map = new LinkedHashMap<>();
-            map.put("label", createAttribute(createVertexLabel(v)));
-            return map;
-        });
-        exporter.exportGraph(graph, writer);
+    @Override
+    public void exportGraph( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final Writer writer, //
+            final ScrGraphFormat format) {
+
+        final long start = metrics.start();
+        final ScrGraphExporter exporter = ScrGraphExporter.of(format);
+        final ToLongFunction<ScrComponent> activationTimes = getActivationTimes();
+        if (activationTimes != null) {
+            exporter.withActivationTimes(activationTimes);
+        }
+        exporter.export(graph, writer);
+        metrics.record(Operation.EXPORT, start);
     }
 
-    private void prepareComponents(final List<ScrComponent> components) {
-        for (final ComponentDescriptionDTO desc : scr.getComponentDescriptionDTOs()) {
-            for (final ComponentConfigurationDTO configurationDTO : scr.getComponentConfigurationDTOs(desc)) {
-                if (configurationDTO.state == SATISFIED || configurationDTO.state == ACTIVE) {
-                    final ScrComponent componentName = createComponent(desc, configurationDTO);
-                    components.add(componentName);
-                }
-            }
+    @Override
+    public void exportGraph( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final OutputStream out, //
+            final ScrGraphFormat format) {
+
+        requireNonNull(out, "'out' cannot be null");
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        exportGraph(graph, writer, format);
+    }
+
+    private Graph<ScrComponent, DefaultEdge> createGraph() {
+        if (liveGraph != null) {
+            // the reconciliation of the live graph is measured as a whole
+            final long start = metrics.start();
+            final Graph<ScrComponent, DefaultEdge> graph = liveGraph.getGraph();
+            metrics.record(Operation.GRAPH_BUILD, start);
+            return graph;
+        }
+        final List<ScrComponent> components = new ArrayList<>();
+        final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
+
+        prepare(null, components, edges);
+
+        return buildGraph(components, edges);
+    }
+
+    /**
+     * Returns the snapshot of the live graph. The live graph is reconciled on
+     * every access and hence does not lag behind the change count.
+     */
+    private synchronized ScrGraphSnapshot getLiveSnapshot() {
+        final Graph<ScrComponent, DefaultEdge> graph = createGraph();
+        if (snapshot == null || snapshotSource != graph) {
+            metrics.recordGraph(graph.vertexSet().size(), graph.edgeSet().size());
+            snapshot = new ImmutableScrGraphSnapshot(getChangeCount(), graph);
+            snapshotSource = graph;
         }
+        return snapshot;
     }
 
-    private void prepareEdges( //
+    private Graph<ScrComponent, DefaultEdge> buildGraph( //
             final List<ScrComponent> components, //
             final List<Pair<ScrComponent, ScrComponent>> edges) {
 
-        final String componentNameProperty = "component.name";
-
-        for (final ScrComponent component : components) {
-            final ComponentConfigurationDTO dto = component.configuration;
-            final SatisfiedReferenceDTO[] services = dto.satisfiedReferences;
+        final long start = metrics.start();
+        final Graph<ScrComponent, DefaultEdge> graph = ScrGraphCollector.buildGraph(components, edges);
+        metrics.record(Operation.GRAPH_BUILD, start);
+        return graph;
+    }
 
-            for (final SatisfiedReferenceDTO refDTO : services) {
-                final ServiceReferenceDTO[] srvRefDTOs = refDTO.boundServices;
+    private List<List<ScrComponent>> getStronglyConnectedComponents(final ScrGraphSnapshot current) {
+        final long start = metrics.start();
+        final List<List<ScrComponent>> sccs = cycleIndex.getStronglyConnectedComponents(current);
+        metrics.record(Operation.CYCLE_SEARCH, start);
+        metrics.recordStronglyConnectedComponents(sccs.size());
+        return sccs;
+    }
 
-                for (final ServiceReferenceDTO srvRefDTO : srvRefDTOs) {
-                    final String property = (String) srvRefDTO.properties.get(componentNameProperty);
-                    ScrComponent endComponent = null;
-                    if (property == null) { // not a DS component
-                        break;
-                    }
-                    endComponent = findComponentByName(components, componentNameProperty);
-                    edges.add(new Pair<>(component, endComponent));
+    /**
+     * Returns the snapshot of the graph that only consists of the blocking
+     * edges of the specified snapshot. The pruned graph is derived once per
+     * snapshot such that the blocking cycle index can detect the unchanged
+     * strongly connected components.
+     */
+    private synchronized ScrGraphSnapshot getBlockingSnapshot(final ScrGraphSnapshot current) {
+        if (blockingSource != current) {
+            final Graph<ScrComponent, DefaultEdge> graph = current.getGraph();
+            final Graph<ScrComponent, DefaultEdge> blocking = new DefaultDirectedGraph<>(DefaultEdge.class);
+            for (final DefaultEdge edge : graph.edgeSet()) {
+                if (isBlocking(edge)) {
+                    final ScrComponent source = graph.getEdgeSource(edge);
+                    final ScrComponent target = graph.getEdgeTarget(edge);
+                    blocking.addVertex(source);
+                    blocking.addVertex(target);
+                    blocking.addEdge(source, target, edge);
                 }
             }
+            blockingSnapshot = new ImmutableScrGraphSnapshot(current.getChangeCount(), blocking);
+            blockingSource = current;
         }
+        return blockingSnapshot;
     }
 
-    private Graph<ScrComponent, DefaultEdge> buildGraph( //
-            final List<ScrComponent> components, //
-            final List<Pair<ScrComponent, ScrComponent>> edges) {
+    private ScrComponent loadComponent(final long bundleId, final String name, final long configurationId) {
+        final Bundle bundle = bundleContext.getBundle(bundleId);
+        if (bundle == null) {
+            return null;
+        }
+        final ComponentDescriptionDTO description = scr.getComponentDescriptionDTO(bundle, name);
+        if (description == null) {
+            return null;
+        }
+        for (final ComponentConfigurationDTO configuration : scr.getComponentConfigurationDTOs(description)) {
+            if (configuration.id == configurationId) {
+                return ScrGraphCollector.createComponent(description, configuration);
+            }
+        }
+        return null;
+    }
 
-        final Graph<ScrComponent, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+    /**
+     * Returns the function to look up the measured activation times or
+     * {@code null} if nothing has been measured
+     */
+    private ToLongFunction<ScrComponent> getActivationTimes() {
+        if (activationTracker == null) {
+            return null;
+        }
+        final Map<Long, Sample> samples = activationTracker.getSamples();
+        if (samples.isEmpty()) {
+            return null;
+        }
+        return c -> {
+            final Sample sample = samples.get(c.configuration.id);
+            return sample == null ? -1 : sample.activationNanos;
+        };
+    }
 
-        components.forEach(graph::addVertex);
-        edges.forEach(edge -> graph.addEdge(edge.getFirst(), edge.getSecond()));
+    private ScrReachabilityIndex getReachabilityIndex() {
+        final ScrGraphSnapshot current = getSnapshot();
+        ScrReachabilityIndex index = reachabilityIndex;
+        if (index == null || index.getSnapshot() != current) {
+            index = new ScrReachabilityIndex(current);
+            reachabilityIndex = index;
+        }
+        return index;
+    }
 
-        return graph;
+    /**
+     * Returns the SCR change count. In the full-fidelity mode, the number of
+     * observed service events is added as both counters only increase.
+     */
+    private long getChangeCount() {
+        final Object changeCount = scrReference.getProperty(SERVICE_CHANGECOUNT);
+        return changeCount instanceof Number ? ((Number) changeCount).longValue() + serviceChanges.get() : -1;
     }
 
-    private ScrComponent createComponent( //
-            final ComponentDescriptionDTO description, //
-            final ComponentConfigurationDTO configuration) {
+    private static boolean isUpToDate(final ScrGraphSnapshot snapshot, final long changeCount) {
+        return snapshot != null && changeCount != -1 && snapshot.getChangeCount() == changeCount;
+    }
 
-        final ScrComponent component = new ScrComponent();
+    /**
+     * Collects the graph until the specified condition holds. A complete
+     * unfiltered graph is cached as the current snapshot.
+     */
+    private ScrGraphResult<Graph<ScrComponent, DefaultEdge>> collect( //
+            final ScrComponentFilter filter, //
+            final BooleanSupplier stopCondition) {
+
+        final ScrGraphResult<Graph<ScrComponent, DefaultEdge>> result = new ScrGraphResult<>();
+        if (filter == null && liveGraph != null) {
+            // the live graph is reconciled incrementally and hence not interrupted
+            result.value = createGraph();
+            return result;
+        }
+        // the snapshot is not reused as SCR might publish the change count with a delay
+        final long changeCount = getChangeCount();
+        final List<ScrComponent> components = new ArrayList<>();
+        final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
+
+        final ScrGraphCollector collector = createCollector().withStopCondition(stopCondition);
+        collector.collect(filter, components, edges);
+
+        result.value = buildGraph(components, edges);
+        result.truncated = collector.isTruncated();
+
+        if (filter == null && !result.truncated) {
+            synchronized (this) {
+                if (!isUpToDate(snapshot, changeCount)) {
+                    metrics.recordGraph(result.value.vertexSet().size(), result.value.edgeSet().size());
+                    snapshot = new ImmutableScrGraphSnapshot(changeCount, result.value);
+                }
+            }
+        }
+        return result;
+    }
 
-        component.description = description;
-        component.configuration = configuration;
+    /**
+     * Runs the specified operation on the executor of the asynchronous
+     * operations. The operation is passed the condition that holds once the
+     * deadline has passed or the returned stage has been completed otherwise,
+     * i.e. cancelled.
+     */
+    private <T> CompletionStage<ScrGraphResult<T>> submit( //
+            final Duration deadline, //
+            final Function<BooleanSupplier, ScrGraphResult<T>> operation) {
+
+        final CompletableFuture<ScrGraphResult<T>> future = new CompletableFuture<>();
+        final long deadlineAt = deadline == null ? 0 : System.nanoTime() + deadline.toNanos();
+        final BooleanSupplier stopCondition = () -> future.isDone()
+                || (deadline != null && System.nanoTime() - deadlineAt > 0);
+
+        pendingOperations.add(future);
+        future.whenComplete((r, e) -> pendingOperations.remove(future));
+        try {
+            asyncExecutor.execute(() -> {
+                if (future.isDone()) {
+                    return; // cancelled while queued
+                }
+                try {
+                    future.complete(operation.apply(stopCondition));
+                } catch (final RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static ExecutorService createAsyncExecutor(final int threads, final int queueCapacity) {
+        final AtomicInteger counter = new AtomicInteger();
+        final int poolSize = Math.max(1, threads);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor( //
+                poolSize, //
+                poolSize, //
+                60, //
+                TimeUnit.SECONDS, //
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), //
+                r -> {
+                    final Thread thread = new Thread(r, "scr-graph-async-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
-        return component;
+    private ScrGraphCollector createCollector() {
+        final ScrGraphCollector collector = new ScrGraphCollector(scr, fullFidelity, collectionPool, null)
+                .withMetrics(metrics);
+        if (descriptionPool != null) {
+            collector.withDescriptionPool(descriptionPool);
+        }
+        return collector;
     }
 
-    private ScrComponent findComponentByName(final List<ScrComponent> components, final String componentName) {
-        return components.stream() //
-                .filter(c -> componentName.equals(c.description.name)) //
-                .findAny() //
-                .orElse(null);
+    private void prepare( //
+            final ScrComponentFilter filter, //
+            final List<ScrComponent> components, //
+            final List<Pair<ScrComponent, ScrComponent>> edges) {
+
+        createCollector().collect(filter, components, edges);
     }
 
 }
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+/**
+ * Reachability index of a single snapshot.
+ *
+ * <p>
+ * The strongly connected components of the graph are condensed into units such
+ * that the condensation is acyclic. The transitive closure of a unit is a
+ * {@link BitSet} over the units which is computed by a single traversal of the
+ * condensation the first time the unit is queried and cached afterwards.
+ * Hence, the memory is only spent for the queried components and repeated
+ * queries only cost the iteration over the set bits.
+ *
+ * <p>
+ * Queries with a depth limit are answered by a breadth-first search that
+ * stops at the limit. Shortest path queries check the closure first such that
+ * the search is only executed if a path exists at all.
+ */
+public final class ScrReachabilityIndex {
+
+    private final ScrGraphSnapshot snapshot;
+    private final ScrComponent[] vertices;
+    private final Map<Long, Integer> indexById;
+    private final int[][] successors;
+    private final int[][] predecessors;
+    private final int[] unitOf;
+    private final int[][] members;
+    private final int[][] unitSuccessors;
+    private final int[][] unitPredecessors;
+    private final Map<Integer, BitSet> descendants = new ConcurrentHashMap<>();
+    private final Map<Integer, BitSet> ancestors = new ConcurrentHashMap<>();
+
+    public ScrReachabilityIndex(final ScrGraphSnapshot snapshot) {
+        this.snapshot = requireNonNull(snapshot, "'snapshot' cannot be null");
+
+        final Graph<ScrComponent, DefaultEdge> graph = snapshot.getGraph();
+        vertices = graph.vertexSet().toArray(new ScrComponent[0]);
+        indexById = new HashMap<>((int) (vertices.length / 0.75f) + 1);
+
+        final Map<ScrComponent, Integer> indices = new HashMap<>((int) (vertices.length / 0.75f) + 1);
+        for (int i = 0; i < vertices.length; i++) {
+            indices.put(vertices[i], i);
+            indexById.put(vertices[i].configuration.id, i);
+        }
+        successors = new int[vertices.length][];
+        predecessors = new int[vertices.length][];
+        for (int i = 0; i < vertices.length; i++) {
+            successors[i] = toIndices(graph, graph.outgoingEdgesOf(vertices[i]), indices, true);
+            predecessors[i] = toIndices(graph, graph.incomingEdgesOf(vertices[i]), indices, false);
+        }
+
+        final List<Set<ScrComponent>> sccs = new KosarajuStrongConnectivityInspector<>(graph).stronglyConnectedSets();
+        unitOf = new int[vertices.length];
+        members = new int[sccs.size()][];
+        for (int unit = 0; unit < members.length; unit++) {
+            final Set<ScrComponent> scc = sccs.get(unit);
+            members[unit] = new int[scc.size()];
+            int i = 0;
+            for (final ScrComponent component : scc) {
+                final int index = indices.get(component);
+                unitOf[index] = unit;
+                members[unit][i++] = index;
+            }
+        }
+        unitSuccessors = condense(successors);
+        unitPredecessors = condense(predecessors);
+    }
+
+    public ScrGraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the components that are reachable from the specified component
+     *
+     * @param configurationId the configuration identifier of the component
+     * @param maxDepth the maximum number of edges to follow ({@code 0} for no
+     *            limit)
+     * @param reverse {@code true} to follow the edges in reverse direction
+     *            (dependents), {@code false} otherwise (dependencies)
+     * @return the reachable components sorted by their configuration
+     *         identifiers excluding the specified component
+     *
+     * @throws IllegalArgumentException if the component does not exist
+     */
+    public List<ScrComponent> getReachable(final long configurationId, final int maxDepth, final boolean reverse) {
+        final int start = indexOf(configurationId);
+        final List<ScrComponent> reachable = new ArrayList<>();
+        if (maxDepth <= 0) {
+            final BitSet closure = getClosure(unitOf[start], reverse);
+            for (int unit = closure.nextSetBit(0); unit >= 0; unit = closure.nextSetBit(unit + 1)) {
+                for (final int member : members[unit]) {
+                    if (member != start) {
+                        reachable.add(vertices[member]);
+                    }
+                }
+            }
+        } else {
+            final int[][] adjacency = reverse ? predecessors : successors;
+            final int[] distances = search(start, adjacency, maxDepth);
+            for (int i = 0; i < distances.length; i++) {
+                if (distances[i] > 0) {
+                    reachable.add(vertices[i]);
+                }
+            }
+        }
+        reachable.sort(comparingLong(c -> c.configuration.id));
+        return reachable;
+    }
+
+    /**
+     * Returns a shortest path between the specified components
+     *
+     * @param fromConfigurationId the configuration identifier of the first
+     *            component
+     * @param toConfigurationId the configuration identifier of the last
+     *            component
+     * @return the components of the path including both the ends or an empty
+     *         list if no path exists
+     *
+     * @throws IllegalArgumentException if any of the components does not
+     *             exist
+     */
+    public List<ScrComponent> getShortestPath(final long fromConfigurationId, final long toConfigurationId) {
+        final int from = indexOf(fromConfigurationId);
+        final int to = indexOf(toConfigurationId);
+        if (from == to) {
+            return Collections.singletonList(vertices[from]);
+        }
+        if (!getClosure(unitOf[from], false).get(unitOf[to])) {
+            return Collections.emptyList();
+        }
+        final int[] parents = new int[vertices.length];
+        Arrays.fill(parents, -1);
+        parents[from] = from;
+
+        final Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+        while (!queue.isEmpty() && parents[to] == -1) {
+            final int vertex = queue.poll();
+            for (final int successor : successors[vertex]) {
+                if (parents[successor] == -1) {
+                    parents[successor] = vertex;
+                    queue.add(successor);
+                }
+            }
+        }
+        final List<ScrComponent> path = new ArrayList<>();
+        for (int vertex = to; vertex != from; vertex = parents[vertex]) {
+            path.add(vertices[vertex]);
+        }
+        path.add(vertices[from]);
+        Collections.reverse(path);
+        return path;
+    }
+
+    private int indexOf(final long configurationId) {
+        final Integer index = indexById.get(configurationId);
+        if (index == null) {
+            throw new IllegalArgumentException("No component with configuration ID " + configurationId);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the units reachable from the specified unit including the unit
+     * itself
+     */
+    private BitSet getClosure(final int unit, final boolean reverse) {
+        final Map<Integer, BitSet> cache = reverse ? ancestors : descendants;
+        final int[][] adjacency = reverse ? unitPredecessors : unitSuccessors;
+
+        return cache.computeIfAbsent(unit, u -> {
+            final BitSet closure = new BitSet(members.length);
+            final Deque<Integer> stack = new ArrayDeque<>();
+            closure.set(u);
+            stack.push(u);
+            while (!stack.isEmpty()) {
+                for (final int next : adjacency[stack.pop()]) {
+                    if (!closure.get(next)) {
+                        closure.set(next);
+                        stack.push(next);
+                    }
+                }
+            }
+            return closure;
+        });
+    }
+
+    /**
+     * Breadth-first search returning the distance of every vertex from the
+     * start ({@code -1} if not reached within the maximum depth)
+     */
+    private int[] search(final int start, final int[][] adjacency, final int maxDepth) {
+        final int[] distances = new int[vertices.length];
+        Arrays.fill(distances, -1);
+        distances[start] = 0;
+
+        final Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            final int vertex = queue.poll();
+            if (distances[vertex] == maxDepth) {
+                continue;
+            }
+            for (final int next : adjacency[vertex]) {
+                if (distances[next] == -1) {
+                    distances[next] = distances[vertex] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distances;
+    }
+
+    private int[][] condense(final int[][] adjacency) {
+        final int[][] condensed = new int[members.length][];
+        final BitSet seen = new BitSet(members.length);
+        final int[] buffer = new int[members.length];
+        for (int unit = 0; unit < members.length; unit++) {
+            int size = 0;
+            for (final int member : members[unit]) {
+                for (final int next : adjacency[member]) {
+                    final int nextUnit = unitOf[next];
+                    if (nextUnit != unit && !seen.get(nextUnit)) {
+                        seen.set(nextUnit);
+                        buffer[size++] = nextUnit;
+                    }
+                }
+            }
+            condensed[unit] = Arrays.copyOf(buffer, size);
+            // only reset the units seen by this unit instead of the whole set
+            for (int i = 0; i < size; i++) {
+                seen.clear(buffer[i]);
+            }
+        }
+        return condensed;
+    }
+
+    private static int[] toIndices( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final Set<DefaultEdge> edges, //
+            final Map<ScrComponent, Integer> indices, //
+            final boolean targets) {
+
+        final int[] result = new int[edges.size()];
+        int i = 0;
+        for (final DefaultEdge edge : edges) {
+            result[i++] = indices.get(targets ? graph.getEdgeTarget(edge) : graph.getEdgeSource(edge));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import org.jgrapht.alg.util.Pair;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrReferenceEdge;
+
+/**
+ * A collected dependency that also carries the edge of the reference it has
+ * been resolved from. The collected lists of dependencies remain lists of
+ * plain {@link Pair}s and the edge is picked up by
+ * {@link ScrGraphHelper#addEdge(org.jgrapht.Graph, Pair)}.
+ */
+final class ScrReferenceWire extends Pair<ScrComponent, ScrComponent> {
+
+    private static final long serialVersionUID = 1L;
+
+    final ScrReferenceEdge edge;
+
+    ScrReferenceWire(final ScrComponent source, final ScrComponent target, final ScrReferenceEdge edge) {
+        super(source, target);
+        this.edge = edge;
+    }
+
+}
@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.api.ScrComponentType.COMPONENT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+import org.osgi.service.component.runtime.dto.SatisfiedReferenceDTO;
+import org.osgi.service.component.runtime.dto.UnsatisfiedReferenceDTO;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrComponentType;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+/**
+ * An append-only file of binary encoded snapshots.
+ *
+ * <p>
+ * Every snapshot is stored as a single self-describing record:
+ *
+ * <pre>
+ * int    magic
+ * int    record length (including the header)
+ * long   sequence number
+ * long   change count
+ * long   timestamp (milliseconds since the epoch)
+ * int    number of names, followed by the names (int length + UTF-8 bytes)
+ * int    number of vertices, followed by the vertices
+ *        (int name index + long bundle id + long configuration id + int state
+ *         + byte type)
+ * int    number of edges, followed by the edges
+ *        (int source vertex index + int target vertex index)
+ * </pre>
+ *
+ * Only the offsets of the records are kept on the heap. The stored snapshots
+ * are decoded from a read-only memory mapping of their records whenever their
+ * graphs are requested. If appending a record would exceed the capacity, the
+ * oldest records are evicted by rewriting the file with the retained records.
+ * A truncated trailing record, e.g. due to a crash while appending, is
+ * discarded on opening.
+ *
+ * <p>
+ * The metadata of the references is not stored and the edges of the decoded
+ * graphs are therefore plain edges which are all considered to be blocking.
+ */
+public final class ScrSnapshotStore implements Closeable {
+
+    private static final int MAGIC = 0x53435247; // "SCRG"
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+    private static final int VERTEX_SIZE = 4 + 8 + 8 + 4 + 1;
+    private static final int EDGE_SIZE = 4 + 4;
+    private static final ScrComponentType[] TYPES = ScrComponentType.values();
+
+    /**
+     * Location of a record in the file
+     */
+    private static final class Record {
+
+        final long sequence;
+        final long changeCount;
+        final long timestamp;
+        final long offset;
+        final int length;
+
+        Record(final long sequence, final long changeCount, final long timestamp, final long offset,
+                final int length) {
+            this.sequence = sequence;
+            this.changeCount = changeCount;
+            this.timestamp = timestamp;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A snapshot whose graph is decoded from the store on every request
+     */
+    private final class StoredSnapshot implements ScrGraphSnapshot {
+
+        private final long sequence;
+        private final long changeCount;
+        private final long timestamp;
+
+        StoredSnapshot(final Record record) {
+            sequence = record.sequence;
+            changeCount = record.changeCount;
+            timestamp = record.timestamp;
+        }
+
+        @Override
+        public long getChangeCount() {
+            return changeCount;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public Graph<ScrComponent, DefaultEdge> getGraph() {
+            return new AsUnmodifiableGraph<>(read(sequence));
+        }
+
+        @Override
+        public String toString() {
+            return "ScrGraphSnapshot [sequence=" + sequence + ", changeCount=" + changeCount + ", timestamp="
+                    + timestamp + "]";
+        }
+    }
+
+    private final Path file;
+    private final long capacity;
+    private final Deque<Record> records = new ArrayDeque<>();
+
+    private FileChannel channel;
+    private long nextSequence;
+
+    private ScrSnapshotStore(final Path file, final long capacity) {
+        this.file = file;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Opens the store in the specified file and creates the file if it does
+     * not exist
+     *
+     * @param file the file of the store
+     * @param capacity the maximum size of the file in bytes
+     *
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static ScrSnapshotStore open(final Path file, final long capacity) {
+        requireNonNull(file, "'file' cannot be null");
+        if (capacity <= HEADER_SIZE) {
+            throw new IllegalArgumentException("'capacity' is too small");
+        }
+        final ScrSnapshotStore store = new ScrSnapshotStore(file, capacity);
+        try {
+            store.channel = FileChannel.open(file, CREATE, READ, WRITE);
+            store.scan();
+        } catch (final IOException e) {
+            store.close();
+            throw new UncheckedIOException(e);
+        }
+        return store;
+    }
+
+    /**
+     * Appends the specified snapshot and evicts the oldest snapshots if the
+     * capacity would be exceeded otherwise
+     *
+     * @param snapshot the snapshot to store
+     *
+     * @return the stored snapshot
+     *
+     * @throws IllegalArgumentException if the encoded snapshot alone exceeds the
+     *             capacity
+     * @throws UncheckedIOException if the snapshot cannot be written
+     */
+    public synchronized ScrGraphSnapshot append(final ScrGraphSnapshot snapshot) {
+        requireNonNull(snapshot, "'snapshot' cannot be null");
+
+        final ByteBuffer buffer = encode(nextSequence, snapshot);
+        final int length = buffer.remaining();
+        if (length > capacity) {
+            throw new IllegalArgumentException("The snapshot (" + length + " bytes) exceeds the capacity");
+        }
+        try {
+            long size = channel.size();
+            if (size + length > capacity) {
+                evict(capacity - length);
+                size = channel.size();
+            }
+            long position = size;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+
+            final Record record = new Record(nextSequence++, snapshot.getChangeCount(), snapshot.getTimestamp(), size,
+                    length);
+            records.addLast(record);
+            return new StoredSnapshot(record);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the stored snapshots, the oldest first. The graphs of the
+     * returned snapshots are decoded lazily.
+     *
+     * <p>
+     * <b>Note that</b>, requesting the graph of a snapshot that has been
+     * evicted in the meantime results in an {@link IllegalStateException}.
+     */
+    public synchronized List<ScrGraphSnapshot> getSnapshots() {
+        final List<ScrGraphSnapshot> snapshots = new ArrayList<>(records.size());
+        for (final Record record : records) {
+            snapshots.add(new StoredSnapshot(record));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                // nothing to do as the records have been forced already
+            }
+        }
+    }
+
+    private synchronized Graph<ScrComponent, DefaultEdge> read(final long sequence) {
+        for (final Record record : records) {
+            if (record.sequence == sequence) {
+                try {
+                    return decode(channel.map(FileChannel.MapMode.READ_ONLY, record.offset, record.length));
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        throw new IllegalStateException("The snapshot has been evicted from the store");
+    }
+
+    private void scan() throws IOException {
+        final long size = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        long offset = 0;
+        while (offset + HEADER_SIZE <= size) {
+            header.clear();
+            while (header.hasRemaining() && channel.read(header, offset + header.position()) > 0) {
+                // read the complete header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                break;
+            }
+            final int length = header.getInt();
+            if (length < HEADER_SIZE || offset + length > size) {
+                break;
+            }
+            final long sequence = header.getLong();
+            final long changeCount = header.getLong();
+            final long timestamp = header.getLong();
+
+            records.addLast(new Record(sequence, changeCount, timestamp, offset, length));
+            nextSequence = sequence + 1;
+            offset += length;
+        }
+        if (offset < size) {
+            // discard the incomplete trailing record
+            channel.truncate(offset);
+        }
+    }
+
+    /**
+     * Rewrites the file with the newest records that fit into the specified
+     * number of bytes
+     */
+    private void evict(final long available) throws IOException {
+        long retained = 0;
+        final Deque<Record> kept = new ArrayDeque<>();
+        final Iterator<Record> newest = records.descendingIterator();
+        while (newest.hasNext()) {
+            final Record record = newest.next();
+            if (retained + record.length > available) {
+                break;
+            }
+            retained += record.length;
+            kept.addFirst(record);
+        }
+
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final Deque<Record> moved = new ArrayDeque<>();
+        try (FileChannel target = FileChannel.open(temp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (final Record record : kept) {
+                final MappedByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, record.offset,
+                        record.length);
+                while (source.hasRemaining()) {
+                    target.write(source, position + source.position());
+                }
+                moved.addLast(new Record(record.sequence, record.changeCount, record.timestamp, position,
+                        record.length));
+                position += record.length;
+            }
+            target.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        channel = FileChannel.open(file, READ, WRITE);
+
+        records.clear();
+        records.addAll(moved);
+    }
+
+    private static ByteBuffer encode(final long sequence, final ScrGraphSnapshot snapshot) {
+        final Graph<ScrComponent, DefaultEdge> graph = snapshot.getGraph();
+
+        final Map<String, Integer> names = new HashMap<>();
+        final List<byte[]> encodedNames = new ArrayList<>();
+        final Map<ScrComponent, Integer> vertices = new IdentityHashMap<>();
+
+        int length = HEADER_SIZE + 4 + 4 + 4;
+        for (final ScrComponent vertex : graph.vertexSet()) {
+            vertices.put(vertex, vertices.size());
+            final String name = vertex.description.name;
+            if (!names.containsKey(name)) {
+                names.put(name, names.size());
+                final byte[] encoded = name.getBytes(UTF_8);
+                encodedNames.add(encoded);
+                length += 4 + encoded.length;
+            }
+        }
+        length += vertices.size() * VERTEX_SIZE + graph.edgeSet().size() * EDGE_SIZE;
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(length);
+        buffer.putLong(sequence);
+        buffer.putLong(snapshot.getChangeCount());
+        buffer.putLong(snapshot.getTimestamp());
+
+        buffer.putInt(encodedNames.size());
+        for (final byte[] name : encodedNames) {
+            buffer.putInt(name.length);
+            buffer.put(name);
+        }
+        buffer.putInt(vertices.size());
+        for (final ScrComponent vertex : graph.vertexSet()) {
+            buffer.putInt(names.get(vertex.description.name));
+            buffer.putLong(vertex.description.bundle == null ? -1 : vertex.description.bundle.id);
+            buffer.putLong(vertex.configuration.id);
+            buffer.putInt(vertex.configuration.state);
+            buffer.put((byte) (vertex.type == null ? COMPONENT : vertex.type).ordinal());
+        }
+        buffer.putInt(graph.edgeSet().size());
+        for (final DefaultEdge edge : graph.edgeSet()) {
+            buffer.putInt(vertices.get(graph.getEdgeSource(edge)));
+            buffer.putInt(vertices.get(graph.getEdgeTarget(edge)));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Graph<ScrComponent, DefaultEdge> decode(final ByteBuffer buffer) {
+        buffer.position(HEADER_SIZE);
+
+        final String[] names = new String[buffer.getInt()];
+        for (int i = 0; i < names.length; i++) {
+            final byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            names[i] = new String(name, UTF_8);
+        }
+        // share the descriptions between the configurations of a component
+        final List<Map<Long, ComponentDescriptionDTO>> descriptions = newDescriptionIndex(names.length);
+
+        final Graph<ScrComponent, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        final ScrComponent[] vertices = new ScrComponent[buffer.getInt()];
+        for (int i = 0; i < vertices.length; i++) {
+            final int nameIndex = buffer.getInt();
+            final long bundleId = buffer.getLong();
+
+            final ComponentDescriptionDTO description = descriptions.get(nameIndex).computeIfAbsent(bundleId, id -> {
+                final ComponentDescriptionDTO dto = new ComponentDescriptionDTO();
+                dto.name = names[nameIndex];
+                dto.bundle = new BundleDTO();
+                dto.bundle.id = id;
+                return dto;
+            });
+            final ComponentConfigurationDTO configuration = new ComponentConfigurationDTO();
+
+            configuration.description = description;
+            configuration.id = buffer.getLong();
+            configuration.state = buffer.getInt();
+            configuration.satisfiedReferences = new SatisfiedReferenceDTO[0];
+            configuration.unsatisfiedReferences = new UnsatisfiedReferenceDTO[0];
+
+            final ScrComponent component = new ScrComponent();
+
+            component.description = description;
+            component.configuration = configuration;
+            component.type = TYPES[buffer.get()];
+
+            vertices[i] = component;
+            graph.addVertex(component);
+        }
+        final int edges = buffer.getInt();
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge(vertices[buffer.getInt()], vertices[buffer.getInt()]);
+        }
+        return graph;
+    }
+
+    private static List<Map<Long, ComponentDescriptionDTO>> newDescriptionIndex(final int size) {
+        final List<Map<Long, ComponentDescriptionDTO>> index = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            index.add(new HashMap<>(2));
+        }
+        return index;
+    }
+
+}
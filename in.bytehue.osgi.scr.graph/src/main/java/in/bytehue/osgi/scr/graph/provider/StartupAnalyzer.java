@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+import org.jgrapht.graph.DefaultEdge;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrStartupAnalysis;
+
+/**
+ * Computes the {@link ScrStartupAnalysis} of a graph.
+ *
+ * <p>
+ * Every strongly connected component is condensed into a single unit whose
+ * weight is the sum of the weights of its members. The units are then visited
+ * in reverse topological order (dependencies first) to compute the layer of
+ * every unit as well as the heaviest chain of dependencies ending in every
+ * unit. Both the condensation and the traversal take linear time.
+ */
+public final class StartupAnalyzer {
+
+    private StartupAnalyzer() {
+        throw new IllegalAccessError("Cannot be instantiated");
+    }
+
+    /**
+     * Analyzes the specified graph
+     *
+     * @param graph the graph whose edges point from a component to its
+     *            dependencies
+     * @param weight the weight of every component or {@code null} to weight
+     *            every component with {@code 1}
+     * @return the analysis
+     */
+    public static ScrStartupAnalysis analyze( //
+            final Graph<ScrComponent, DefaultEdge> graph, //
+            final ToLongFunction<ScrComponent> weight) {
+
+        requireNonNull(graph, "'graph' cannot be null");
+
+        final List<Set<ScrComponent>> sccs = new KosarajuStrongConnectivityInspector<>(graph).stronglyConnectedSets();
+        final int size = sccs.size();
+
+        final Map<ScrComponent, Integer> unitOf = new HashMap<>();
+        final long[] weights = new long[size];
+        for (int unit = 0; unit < size; unit++) {
+            for (final ScrComponent component : sccs.get(unit)) {
+                unitOf.put(component, unit);
+                weights[unit] += weight == null ? 1 : Math.max(0, weight.applyAsLong(component));
+            }
+        }
+        // condensed edges: dependents[u] are the units that depend on u
+        final List<List<Integer>> dependents = new ArrayList<>(size);
+        final int[] pending = new int[size];
+        for (int unit = 0; unit < size; unit++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (final DefaultEdge edge : graph.edgeSet()) {
+            final int source = unitOf.get(graph.getEdgeSource(edge));
+            final int target = unitOf.get(graph.getEdgeTarget(edge));
+            if (source != target) {
+                dependents.get(target).add(source);
+                pending[source]++;
+            }
+        }
+        // Kahn's algorithm starting from the units without any dependency
+        final int[] layer = new int[size];
+        final long[] chain = new long[size];
+        final int[] predecessor = new int[size];
+        final Deque<Integer> ready = new ArrayDeque<>();
+        for (int unit = 0; unit < size; unit++) {
+            predecessor[unit] = -1;
+            chain[unit] = weights[unit];
+            if (pending[unit] == 0) {
+                ready.add(unit);
+            }
+        }
+        int layers = 0;
+        int last = -1;
+        while (!ready.isEmpty()) {
+            final int unit = ready.poll();
+            layers = Math.max(layers, layer[unit] + 1);
+            if (last == -1 || chain[unit] > chain[last]) {
+                last = unit;
+            }
+            for (final int dependent : dependents.get(unit)) {
+                layer[dependent] = Math.max(layer[dependent], layer[unit] + 1);
+                if (chain[unit] + weights[dependent] > chain[dependent]) {
+                    chain[dependent] = chain[unit] + weights[dependent];
+                    predecessor[dependent] = unit;
+                }
+                if (--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        final ScrStartupAnalysis analysis = new ScrStartupAnalysis();
+
+        analysis.layers = new ArrayList<>(layers);
+        for (int i = 0; i < layers; i++) {
+            analysis.layers.add(new ArrayList<>());
+        }
+        for (int unit = 0; unit < size; unit++) {
+            analysis.layers.get(layer[unit]).addAll(sccs.get(unit));
+        }
+        analysis.widths = new int[layers];
+        for (int i = 0; i < layers; i++) {
+            analysis.layers.get(i).sort(comparingLong(c -> c.configuration.id));
+            analysis.widths[i] = analysis.layers.get(i).size();
+        }
+        // the chain has been recorded from the last unit back to its first dependency
+        final Deque<ScrComponent> path = new ArrayDeque<>();
+        for (int unit = last; unit != -1; unit = predecessor[unit]) {
+            final List<ScrComponent> members = new ArrayList<>(sccs.get(unit));
+            members.sort(comparingLong((ScrComponent c) -> c.configuration.id).reversed());
+            members.forEach(path::addFirst);
+        }
+        analysis.criticalPath = new ArrayList<>(path);
+        analysis.criticalPathWeight = last == -1 ? 0 : chain[last];
+        analysis.weighted = weight != null;
+
+        return analysis;
+    }
+
+}
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.watchdog;
+
+import static in.bytehue.osgi.scr.graph.api.ScrGraphEventConstants.CHANGE_COUNT;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphEventConstants.COMPONENT_NAMES;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphEventConstants.CONFIGURATION_IDS;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphEventConstants.TOPIC_CYCLE_DETECTED;
+import static in.bytehue.osgi.scr.graph.api.ScrGraphEventConstants.TOPIC_CYCLE_RESOLVED;
+import static in.bytehue.osgi.scr.graph.watchdog.ScrCycleWatchdog.PID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.osgi.framework.Constants.SERVICE_CHANGECOUNT;
+import static org.osgi.service.component.annotations.ConfigurationPolicy.REQUIRE;
+import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
+import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
+import org.osgi.service.log.Logger;
+import org.osgi.service.log.LoggerFactory;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+import in.bytehue.osgi.scr.graph.api.ScrGraph;
+import in.bytehue.osgi.scr.graph.api.ScrGraphSnapshot;
+
+/**
+ * Watches the Service Component Runtime (SCR) for newly introduced cycles.
+ *
+ * <p>
+ * The watchdog does not poll. It is notified about every modification of the
+ * {@code service.changecount} property of the {@link ServiceComponentRuntime}
+ * registration and only inspects the graph if the change count has moved
+ * since the last inspection. The inspection itself is debounced such that a
+ * burst of changes, for example while bundles are being installed, results in
+ * a single inspection once the runtime has settled for the configured quiet
+ * period (but no later than the configured maximum delay).
+ *
+ * <p>
+ * An inspection only partitions the graph into its strongly connected
+ * components which takes linear time. Every cyclic component that has not
+ * been present at the previous inspection is logged and posted to the Event
+ * Admin (if available) using the topic
+ * {@link in.bytehue.osgi.scr.graph.api.ScrGraphEventConstants#TOPIC_CYCLE_DETECTED}.
+ * The cycles that exist when the watchdog is activated are reported by the
+ * first inspection.
+ *
+ * <p>
+ * The watchdog is only activated if a configuration with the PID {@value #PID}
+ * exists.
+ */
+@Component(configurationPid = PID, configurationPolicy = REQUIRE)
+public final class ScrCycleWatchdog {
+
+    public static final String PID = "in.bytehue.osgi.scr.graph.watchdog";
+
+    @interface Config {
+        /**
+         * The quiet period in milliseconds after the last SCR change until
+         * the graph is inspected
+         */
+        long debounce() default 500;
+
+        /**
+         * The maximum delay in milliseconds after the first of a burst of SCR
+         * changes until the graph is inspected
+         */
+        long maxDelay() default 5_000;
+    }
+
+    @Reference
+    private ScrGraph scrGraph;
+
+    @Reference(cardinality = OPTIONAL, policy = DYNAMIC)
+    private volatile EventAdmin eventAdmin;
+
+    @Reference(service = LoggerFactory.class, cardinality = OPTIONAL, policy = DYNAMIC)
+    private volatile Logger logger;
+
+    private long debounce;
+    private long maxDelay;
+    private volatile ScheduledExecutorService executor;
+
+    // guarded by this
+    private long lastChangeCount = -1;
+    private long inspectedChangeCount = -1;
+    private long firstChange;
+    private long lastChange;
+    private boolean scheduled;
+
+    // only accessed by the executor thread
+    private Map<TreeSet<String>, List<ScrComponent>> reported = new HashMap<>();
+
+    @Activate
+    void activate(final Config config) {
+        debounce = MILLISECONDS.toNanos(Math.max(0, config.debounce()));
+        maxDelay = MILLISECONDS.toNanos(Math.max(config.debounce(), config.maxDelay()));
+
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            final Thread thread = new Thread(r, "scr-graph-cycle-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        executor = scheduler;
+
+        // the initial inspection reports the cycles that already exist
+        schedule(System.nanoTime());
+    }
+
+    @Deactivate
+    void deactivate() {
+        executor.shutdownNow();
+    }
+
+    @Reference(service = ServiceComponentRuntime.class, updated = "updatedRuntime")
+    synchronized void bindRuntime(final ServiceReference<ServiceComponentRuntime> reference) {
+        lastChangeCount = getChangeCount(reference);
+    }
+
+    void updatedRuntime(final ServiceReference<ServiceComponentRuntime> reference) {
+        final long changeCount = getChangeCount(reference);
+        synchronized (this) {
+            if (changeCount == lastChangeCount) {
+                return;
+            }
+            lastChangeCount = changeCount;
+        }
+        schedule(System.nanoTime());
+    }
+
+    private synchronized void schedule(final long now) {
+        if (executor == null || executor.isShutdown()) {
+            return; // the activation schedules the initial inspection
+        }
+        lastChange = now;
+        if (!scheduled) {
+            scheduled = true;
+            firstChange = now;
+            executor.schedule(this::tick, debounce, NANOSECONDS);
+        }
+    }
+
+    private void tick() {
+        synchronized (this) {
+            final long now = System.nanoTime();
+            final long quiet = lastChange + debounce - now;
+            final long deadline = firstChange + maxDelay - now;
+            if (quiet > 0 && deadline > 0 && !executor.isShutdown()) {
+                // the runtime has not settled yet
+                executor.schedule(this::tick, Math.min(quiet, deadline), NANOSECONDS);
+                return;
+            }
+            scheduled = false;
+        }
+        try {
+            inspect();
+        } catch (final RuntimeException e) {
+            final Logger log = logger;
+            if (log != null) {
+                log.error("Cannot inspect the SCR graph for cycles", e);
+            }
+        }
+    }
+
+    private void inspect() {
+        final ScrGraphSnapshot snapshot = scrGraph.getSnapshot();
+        final long changeCount = snapshot.getChangeCount();
+        if (changeCount != -1 && changeCount == inspectedChangeCount) {
+            return;
+        }
+        inspectedChangeCount = changeCount;
+
+        final Map<TreeSet<String>, List<ScrComponent>> current = new LinkedHashMap<>();
+        for (final List<ScrComponent> scc : scrGraph.getStronglyConnectedComponents()) {
+            final TreeSet<String> names = new TreeSet<>();
+            for (final ScrComponent component : scc) {
+                names.add(component.description.name);
+            }
+            current.putIfAbsent(names, scc);
+        }
+        for (final Map.Entry<TreeSet<String>, List<ScrComponent>> entry : current.entrySet()) {
+            if (!reported.containsKey(entry.getKey())) {
+                detected(entry.getKey(), entry.getValue(), changeCount);
+            }
+        }
+        for (final TreeSet<String> names : reported.keySet()) {
+            if (!current.containsKey(names)) {
+                resolved(names, changeCount);
+            }
+        }
+        reported = current;
+    }
+
+    private void detected(final TreeSet<String> names, final List<ScrComponent> scc, final long changeCount) {
+        final long[] ids = new long[scc.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = scc.get(i).configuration.id;
+        }
+        final Logger log = logger;
+        if (log != null) {
+            log.warn("SCR cycle detected between {} component(s) at change count {}: {}", names.size(), changeCount,
+                    names);
+        }
+        final Map<String, Object> properties = createProperties(names, changeCount);
+        properties.put(CONFIGURATION_IDS, ids);
+        post(TOPIC_CYCLE_DETECTED, properties);
+    }
+
+    private void resolved(final TreeSet<String> names, final long changeCount) {
+        final Logger log = logger;
+        if (log != null) {
+            log.info("SCR cycle resolved at change count {}: {}", changeCount, names);
+        }
+        post(TOPIC_CYCLE_RESOLVED, createProperties(names, changeCount));
+    }
+
+    private void post(final String topic, final Map<String, Object> properties) {
+        final EventAdmin admin = eventAdmin;
+        if (admin != null) {
+            admin.postEvent(new Event(topic, properties));
+        }
+    }
+
+    private static Map<String, Object> createProperties(final TreeSet<String> names, final long changeCount) {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put(COMPONENT_NAMES, names.toArray(new String[0]));
+        properties.put(CHANGE_COUNT, changeCount);
+        return properties;
+    }
+
+    private static long getChangeCount(final ServiceReference<ServiceComponentRuntime> reference) {
+        final Object changeCount = reference.getProperty(SERVICE_CHANGECOUNT);
+        return changeCount instanceof Number ? ((Number) changeCount).longValue() : -1;
+    }
+
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright 2022 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package in.bytehue.osgi.scr.graph.provider;
+
+import static in.bytehue.osgi.scr.graph.provider.ScrComponentIndex.COMPONENT_ID;
+import static in.bytehue.osgi.scr.graph.provider.ScrComponentIndex.COMPONENT_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.osgi.framework.Constants.OBJECTCLASS;
+import static org.osgi.service.component.runtime.dto.ComponentConfigurationDTO.ACTIVE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.alg.util.Pair;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.dto.BundleDTO;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+import org.osgi.service.component.runtime.ServiceComponentRuntime;
+import org.osgi.service.component.runtime.dto.ComponentConfigurationDTO;
+import org.osgi.service.component.runtime.dto.ComponentDescriptionDTO;
+import org.osgi.service.component.runtime.dto.ReferenceDTO;
+import org.osgi.service.component.runtime.dto.SatisfiedReferenceDTO;
+import org.osgi.service.component.runtime.dto.UnsatisfiedReferenceDTO;
+import org.osgi.util.promise.Promise;
+
+import in.bytehue.osgi.scr.graph.api.ScrComponent;
+
+public final class ScrComponentIndexTest {
+
+    private static final int SIZE = 10_000;
+    private static final int REFERENCES = 3;
+
+    @Test
+    public void resolvesTheSameEdgesAsTheLinearResolution() {
+        final SyntheticRuntime scr = new SyntheticRuntime(SIZE, new Random(42));
+        final List<ScrComponent> components = new ArrayList<>();
+        final List<Pair<ScrComponent, ScrComponent>> edges = new ArrayList<>();
+
+        new ScrGraphCollector(scr, false, null, null).collect(null, components, edges);
+
+        assertEquals(scr.configurationCount, components.size());
+        assertFalse(edges.isEmpty());
+        assertEquals(resolveLinearly(components), toIds(edges));
+    }
+
+    @Test
+    public void resolvesEveryConfigurationOfTheSameName() {
+        final SyntheticRuntime scr = new SyntheticRuntime(SIZE, new Random(7));
+        final List<ScrComponent> components = new ArrayList<>();
+        new ScrGraphCollector(scr, false, null, null).collect(null, components, new ArrayList<>());
+
+        final ScrComponentIndex index = ScrComponentIndex.of(components);
+        for (final ScrComponent component : components) {
+            final ServiceReferenceDTO byId = createService(component.configuration, true);
+            assertSame(component, index.resolve(byId));
+
+            // without an identifier, the first configuration of the name is resolved
+            final ServiceReferenceDTO byName = createService(component.configuration, false);
+            assertSame(findComponentByName(components, component.description.name), index.resolve(byName));
+        }
+    }
+
+    /**
+     * The resolution before the index: a linear scan over all components for
+     * every bound service, by {@code component.id} if it is available and by
+     * {@code component.name} otherwise
+     */
+    private static Set<Pair<Long, Long>> resolveLinearly(final List<ScrComponent> components) {
+        final Set<Pair<Long, Long>> edges = new HashSet<>();
+        for (final ScrComponent component : components) {
+            for (final SatisfiedReferenceDTO reference : component.configuration.satisfiedReferences) {
+                for (final ServiceReferenceDTO service : reference.boundServices) {
+                    final Object name = service.properties.get(COMPONENT_NAME);
+                    if (name == null) {
+                        continue; // not a DS component
+                    }
+                    final Object id = service.properties.get(COMPONENT_ID);
+                    ScrComponent endComponent = null;
+                    if (id instanceof Number) {
+                        endComponent = findComponentById(components, ((Number) id).longValue());
+                    }
+                    if (endComponent == null) {
+                        endComponent = findComponentByName(components, (String) name);
+                    }
+                    if (endComponent != null) {
+                        edges.add(Pair.of(component.configuration.id, endComponent.configuration.id));
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static ScrComponent findComponentById(final List<ScrComponent> components, final long id) {
+        return components.stream() //
+                .filter(c -> c.configuration.id == id) //
+                .findFirst() //
+                .orElse(null);
+    }
+
+    private static ScrComponent findComponentByName(final List<ScrComponent> components, final String name) {
+        return components.stream() //
+                .filter(c -> name.equals(c.description.name)) //
+                .findFirst() //
+                .orElse(null);
+    }
+
+    private static Set<Pair<Long, Long>> toIds(final List<Pair<ScrComponent, ScrComponent>> edges) {
+        final Set<Pair<Long, Long>> ids = new HashSet<>();
+        for (final Pair<ScrComponent, ScrComponent> edge : edges) {
+            ids.add(Pair.of(edge.getFirst().configuration.id, edge.getSecond().configuration.id));
+        }
+        return ids;
+    }
+
+    private static ServiceReferenceDTO createService(final ComponentConfigurationDTO target, final boolean withId) {
+        final ServiceReferenceDTO service = new ServiceReferenceDTO();
+
+        service.id = target.id;
+        service.properties = new HashMap<>();
+        service.properties.put(COMPONENT_NAME, target.description.name);
+        if (withId) {
+            service.properties.put(COMPONENT_ID, target.id);
+        }
+        service.properties.put(OBJECTCLASS, target.description.serviceInterfaces);
+
+        return service;
+    }
+
+    /**
+     * Runtime with randomly wired active components where every tenth
+     * description has three configurations. Some bound services lack the
+     * {@code component.id} and some are not registered by any component.
+     */
+    private static final class SyntheticRuntime implements ServiceComponentRuntime {
+
+        final List<ComponentDescriptionDTO> descriptions = new ArrayList<>();
+        final Map<ComponentDescriptionDTO, List<ComponentConfigurationDTO>> configurations = new IdentityHashMap<>();
+        int configurationCount;
+
+        SyntheticRuntime(final int size, final Random random) {
+            final List<ComponentConfigurationDTO> all = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                final ComponentDescriptionDTO description = new ComponentDescriptionDTO();
+
+                description.name = "synthetic.Component" + i;
+                description.bundle = new BundleDTO();
+                description.bundle.id = i % 100;
+                description.serviceInterfaces = new String[] { description.name };
+                description.references = new ReferenceDTO[0];
+
+                final List<ComponentConfigurationDTO> list = new ArrayList<>();
+                for (int j = 0; j < (i % 10 == 0 ? 3 : 1); j++) {
+                    final ComponentConfigurationDTO configuration = new ComponentConfigurationDTO();
+
+                    configuration.id = ++configurationCount;
+                    configuration.description = description;
+                    configuration.state = ACTIVE;
+                    configuration.properties = new HashMap<>();
+                    configuration.satisfiedReferences = new SatisfiedReferenceDTO[0];
+                    configuration.unsatisfiedReferences = new UnsatisfiedReferenceDTO[0];
+
+                    list.add(configuration);
+                }
+                descriptions.add(description);
+                configurations.put(description, list);
+                all.addAll(list);
+            }
+            for (final ComponentConfigurationDTO source : all) {
+                final ServiceReferenceDTO[] services = new ServiceReferenceDTO[REFERENCES];
+                for (int i = 0; i < REFERENCES; i++) {
+                    final ComponentConfigurationDTO target = all.get(random.nextInt(all.size()));
+                    final int kind = random.nextInt(10);
+                    services[i] = createService(target, kind != 0);
+                    if (kind == 1) {
+                        // a plain service
+                        services[i].properties.remove(COMPONENT_NAME);
+                        services[i].properties.remove(COMPONENT_ID);
+                    }
+                }
+                final SatisfiedReferenceDTO reference = new SatisfiedReferenceDTO();
+
+                reference.name = "reference";
+                reference.boundServices = services;
+                source.satisfiedReferences = new SatisfiedReferenceDTO[] { reference };
+            }
+        }
+
+        @Override
+        public Collection<ComponentDescriptionDTO> getComponentDescriptionDTOs(final Bundle... bundles) {
+            return descriptions;
+        }
+
+        @Override
+        public ComponentDescriptionDTO getComponentDescriptionDTO(final Bundle bundle, final String name) {
+            return descriptions.stream().filter(d -> d.name.equals(name)).findAny().orElse(null);
+        }
+
+        @Override
+        public Collection<ComponentConfigurationDTO> getComponentConfigurationDTOs(
+                final ComponentDescriptionDTO description) {
+            return configurations.getOrDefault(description, Collections.emptyList());
+        }
+
+        @Override
+        public boolean isComponentEnabled(final ComponentDescriptionDTO description) {
+            return true;
+        }
+
+        @Override
+        public Promise<Void> enableComponent(final ComponentDescriptionDTO description) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Promise<Void> disableComponent(final ComponentDescriptionDTO description) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}